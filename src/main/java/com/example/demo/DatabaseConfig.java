@@ -1,58 +1,106 @@
- package com.example.demo;
+package com.example.demo;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactories;
 import io.r2dbc.spi.ConnectionFactory;
 import io.r2dbc.spi.ConnectionFactoryOptions;
-import io.r2dbc.pool.PoolingConnectionFactoryProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
-import org.springframework.r2dbc.core.DatabaseClient; 	
-import static io.r2dbc.spi.ConnectionFactoryOptions.*;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+import java.util.function.ToDoubleFunction;
 
 @Configuration
 @EnableR2dbcRepositories
 public class DatabaseConfig {
 
-      	@Bean
-    public ConnectionFactory connectionFactory() {
-        ConnectionFactoryOptions configuration = ConnectionFactoryOptions.builder()
-            .option(DRIVER, "oracle")
-            .option(PROTOCOL, "tcp")
-            .option(HOST, "localhost")
-            .option(PORT, 1521)
-            .option(DATABASE, "xe")
-            .option(USER, "yourUsername")
-            .option(PASSWORD, "yourPassword")
-            .option(PoolingConnectionFactoryProvider.MAX_SIZE, 10)
-.maxSize(20)  // Max number of connections
-            .initialSize(5)  // Initial number of connections
-            .maxIdleTime(Duration.ofMinutes(30))
-            .acquireRetry(3)
-            .build();
-
-        //return ConnectionFactories.get(options);
-
-	ConnectionPool pool = new ConnectionPool(configuration);
-        
-        pool.addListener(event -> {
-            if (event.isAcquire()) {
-                System.out.println("Connection acquired");
-            } else if (event.isRelease()) {
-                System.out.println("Connection released");
-            }
-        });
+    private static final Logger log = LoggerFactory.getLogger(DatabaseConfig.class);
+
+    /**
+     * Pool sized and validated from {@code query.r2dbc.*}. Warmed up to {@code initial-size}
+     * here, so the application only reports ready once those connections are open.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool connectionPool(@Value("${query.r2dbc.url}") String url,
+                                         @Value("${query.r2dbc.username}") String username,
+                                         @Value("${query.r2dbc.password}") String password,
+                                         @Value("${query.r2dbc.pool.initial-size:5}") int initialSize,
+                                         @Value("${query.r2dbc.pool.max-size:20}") int maxSize,
+                                         @Value("${query.r2dbc.pool.max-idle-time:30m}") Duration maxIdleTime,
+                                         @Value("${query.r2dbc.pool.max-acquire-time:5s}") Duration maxAcquireTime,
+                                         @Value("${query.r2dbc.pool.max-create-connection-time:10s}") Duration maxCreateConnectionTime,
+                                         @Value("${query.r2dbc.pool.acquire-retry:3}") int acquireRetry,
+                                         @Value("${query.r2dbc.pool.validation-query:SELECT 1 FROM DUAL}") String validationQuery,
+                                         @Value("${query.r2dbc.pool.warmup-timeout:30s}") Duration warmupTimeout) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        ConnectionPoolConfiguration configuration = ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("demo-r2dbc")
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .maxIdleTime(maxIdleTime)
+                .maxAcquireTime(maxAcquireTime)
+                .maxCreateConnectionTime(maxCreateConnectionTime)
+                .acquireRetry(acquireRetry)
+                .validationQuery(validationQuery)
+                .build();
+        ConnectionPool pool = new ConnectionPool(configuration);
 
+        Integer warmed = pool.warmup().block(warmupTimeout);
+        log.info("R2DBC pool warmed up with {} of {} initial connections", warmed, initialSize);
         return pool;
     }
 
+    /**
+     * The pool behind a timer on every acquire, plus gauges for its occupancy. This is the
+     * factory the rest of the application uses.
+     */
+    @Bean
+    @Primary
+    public ConnectionFactory connectionFactory(ConnectionPool connectionPool, MeterRegistry meterRegistry) {
+        PoolMetrics metrics = connectionPool.getMetrics()
+                .orElseThrow(() -> new IllegalStateException("R2DBC pool does not expose metrics"));
+        poolGauge(meterRegistry, "r2dbc.pool.acquired", "Connections borrowed right now",
+                metrics, PoolMetrics::acquiredSize);
+        poolGauge(meterRegistry, "r2dbc.pool.idle", "Open connections waiting to be borrowed",
+                metrics, PoolMetrics::idleSize);
+        poolGauge(meterRegistry, "r2dbc.pool.pending", "Callers waiting for a connection",
+                metrics, PoolMetrics::pendingAcquireSize);
+        poolGauge(meterRegistry, "r2dbc.pool.max", "Largest size the pool may grow to",
+                metrics, PoolMetrics::getMaxAllocatedSize);
+        poolGauge(meterRegistry, "r2dbc.pool.utilization", "Borrowed connections as a fraction of the maximum",
+                metrics, m -> (double) m.acquiredSize() / Math.max(1, m.getMaxAllocatedSize()));
+        return new MeteredConnectionFactory(connectionPool, meterRegistry);
+    }
+
+    private static void poolGauge(MeterRegistry meterRegistry, String name, String description,
+                                  PoolMetrics metrics, ToDoubleFunction<PoolMetrics> value) {
+        Gauge.builder(name, metrics, value)
+                .description(description)
+                .tag("pool", "demo-r2dbc")
+                .register(meterRegistry);
+    }
+
     @Bean
     public R2dbcEntityTemplate r2dbcEntityTemplate(ConnectionFactory connectionFactory) {
         return new R2dbcEntityTemplate(connectionFactory);
     }
 
- @Bean
+    @Bean
     public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
         return DatabaseClient.create(connectionFactory);
-    } 	
+    }
 }
@@ -1,12 +1,18 @@
 
 package com.example.demo;
 
+import com.example.controller.RowStreamWriter;
+import com.example.service.DatabaseSchedulers;
+import com.example.service.QueryMetrics;
+import com.example.service.ResultCache;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 
 import javax.annotation.PostConstruct;
 
 @SpringBootApplication
+@Import({RowStreamWriter.class, ResultCache.class, QueryMetrics.class, DatabaseSchedulers.class})
 public class DemoApplication {
     public static void main(String[] args) {
         SpringApplication.run(DemoApplication.class, args);
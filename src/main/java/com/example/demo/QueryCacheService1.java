@@ -1,16 +1,22 @@
 package com.example.demo;
 
+import com.example.service.CompiledTemplate;
+import com.example.service.TemplateCompiler;
+import com.example.service.TemplateDefinition;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import javax.annotation.PostConstruct;
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class QueryCacheService {
     private final TemplateRepository templateRepository;
-    private final Map<String, String> queryCache = new ConcurrentHashMap<>();
+    private final Map<String, CompiledTemplate> queryCache = new ConcurrentHashMap<>();
+    private final AtomicLong revisions = new AtomicLong();
 
     public QueryCacheService(TemplateRepository templateRepository) {
         this.templateRepository = templateRepository;
@@ -19,15 +25,27 @@ public class QueryCacheService {
     @PostConstruct
     public void loadQueriesIntoCache() {
         templateRepository.findAll()
-            .doOnNext(template -> queryCache.put(template.getTemplateId(), template.getQuery()))
+            .doOnNext(template -> queryCache.put(template.getTemplateId(),
+                    TemplateCompiler.compile(template.getTemplateId(), definitionOf(template), revisions.incrementAndGet())))
             .subscribe();
     }
 
     public Mono<String> getQueryByTemplateId(String templateId) {
+        return Mono.justOrEmpty(queryCache.get(templateId)).map(CompiledTemplate::getOriginalSql);
+    }
+
+    public Mono<CompiledTemplate> getTemplate(String templateId) {
         return Mono.justOrEmpty(queryCache.get(templateId));
     }
 
+    private static TemplateDefinition definitionOf(Template template) {
+        Integer ttl = template.getCacheTtlSeconds();
+        return new TemplateDefinition(template.getQuery(), "Y".equalsIgnoreCase(template.getReadOnly()),
+                ttl == null ? null : Duration.ofSeconds(ttl));
+    }
+
 public Flux<Map.Entry<String, String>> getAllQueries() {
-        return Flux.fromIterable(queryCache.entrySet());
+        return Flux.fromIterable(queryCache.values())
+                .map(template -> Map.entry(template.getTemplateId(), template.getOriginalSql()));
     }
 }
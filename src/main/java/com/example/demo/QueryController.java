@@ -1,7 +1,11 @@
 
 package com.example.demo;
 
+import com.example.controller.RowStreamWriter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -12,9 +16,11 @@ import java.util.Map;
 @RequestMapping("/api/v1/query")
 public class QueryController {
     private final QueryService queryService;
+    private final RowStreamWriter rowStreamWriter;
 
-    public QueryController(QueryService queryService) {
+    public QueryController(QueryService queryService, RowStreamWriter rowStreamWriter) {
         this.queryService = queryService;
+        this.rowStreamWriter = rowStreamWriter;
     }
 
     @PostMapping("/single")
@@ -52,4 +58,12 @@ public class QueryController {
         return queryService.executeMultipleQueries(templateIdParamsMap)
                 .onErrorResume(e -> Flux.just("Error executing one of the queries"));
     }
+
+    @GetMapping(value = "/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<Void> streamQuery(
+            @RequestParam String templateId, @RequestParam Map<String, Object> params,
+            @RequestHeader HttpHeaders headers, ServerHttpResponse response) {
+        return rowStreamWriter.write(queryService.streamQuery(templateId, params),
+                RowStreamWriter.isEventStream(headers.getAccept()), response);
+    }
 }
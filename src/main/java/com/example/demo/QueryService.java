@@ -1,11 +1,15 @@
 
 package com.example.demo;
 
+import com.example.service.DatabaseSchedulers;
+import com.example.service.NamedParameterBinder;
+import com.example.service.QueryMetrics;
+import com.example.service.ResultCache;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.util.Map;
 
@@ -14,18 +18,50 @@ public class QueryService {
 
     private final QueryCacheService queryCacheService;
     private final JdbcTemplate jdbcTemplate;
+    private final ResultCache resultCache;
+    private final QueryMetrics queryMetrics;
+    private final DatabaseSchedulers databaseSchedulers;
 
-    public QueryService(QueryCacheService queryCacheService, JdbcTemplate jdbcTemplate) {
+    public QueryService(QueryCacheService queryCacheService, JdbcTemplate jdbcTemplate, ResultCache resultCache,
+                        QueryMetrics queryMetrics, DatabaseSchedulers databaseSchedulers) {
         this.queryCacheService = queryCacheService;
         this.jdbcTemplate = jdbcTemplate;
+        this.resultCache = resultCache;
+        this.queryMetrics = queryMetrics;
+        this.databaseSchedulers = databaseSchedulers;
     }
 
     public Mono<String> executeSingleQuery(String templateId, Map<String, Object> params) {
-        return queryCacheService.getQueryByTemplateId(templateId)
-            .flatMap(query -> Mono.fromCallable(() -> {
-                String finalQuery = applyParams(query, params);
-                return jdbcTemplate.queryForObject(finalQuery, String.class);
-            }).subscribeOn(Schedulers.boundedElastic()));
+        QueryMetrics.PipelineMeters meters = queryMetrics.forTemplate(templateId);
+        return queryCacheService.getTemplate(templateId)
+            .flatMap(template -> {
+                Object[] args = NamedParameterBinder.toPositional(template, params);
+                return resultCache.get(template, args,
+                        () -> Mono.fromCallable(() -> {
+                                    // JdbcTemplate hides acquire and prepare, so the whole call counts as execute
+                                    long mark = System.nanoTime();
+                                    String result = jdbcTemplate.queryForObject(template.getSql(), String.class, args);
+                                    meters.recordExecute(mark);
+                                    meters.recordRows(result == null ? 0 : 1);
+                                    return result;
+                                })
+                                .subscribeOn(databaseSchedulers.query()),
+                        ResultCache::weighValue);
+            })
+            .doOnError(meters::recordError);
+    }
+
+    /**
+     * Streams every row of a template; the underlying cursor stays open only while
+     * the Flux is being consumed and is closed on complete, error or cancel.
+     */
+    public Flux<Map<String, Object>> streamQuery(String templateId, Map<String, Object> params) {
+        QueryMetrics.PipelineMeters meters = queryMetrics.forTemplate(templateId);
+        return queryCacheService.getTemplate(templateId)
+            .flatMapMany(template -> Flux.fromStream(() -> jdbcTemplate.queryForStream(
+                    template.getSql(), new ColumnMapRowMapper(), NamedParameterBinder.toPositional(template, params)))
+                .subscribeOn(databaseSchedulers.query()))
+            .doOnError(meters::recordError);
     }
 
     public Flux<String> executeMultipleQueries(Map<String, String> templateIdParamsMap) {
@@ -34,17 +70,10 @@ public class QueryService {
     }
 
     public Mono<Void> executeProcedure(String templateId, Map<String, Object> inParams, Map<String, Object> outParams) {
-        return queryCacheService.getQueryByTemplateId(templateId)
-            .flatMap(query -> Mono.fromRunnable(() -> {
-                String finalQuery = applyParams(query, inParams);
-                jdbcTemplate.execute(finalQuery);
-            }).subscribeOn(Schedulers.boundedElastic()).then());
-    }
-
-    private String applyParams(String query, Map<String, Object> params) {
-        for (Map.Entry<String, Object> param : params.entrySet()) {
-            query = query.replace(":" + param.getKey(), param.getValue().toString());
-        }
-        return query;
+        return queryCacheService.getTemplate(templateId)
+            .flatMap(template -> Mono.fromRunnable(() -> {
+                Object[] args = NamedParameterBinder.toPositional(template, inParams);
+                jdbcTemplate.update(template.getSql(), args);
+            }).subscribeOn(databaseSchedulers.procedure()).then());
     }
 }
@@ -1,28 +1,33 @@
 package com.example.demo;
 
+import com.example.service.CompiledTemplate;
+import com.example.service.NamedParameterBinder;
+import com.example.service.QueryMetrics;
 import org.springframework.data.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class QueryService {
 
     private final QueryCacheService queryCacheService;
     private final DatabaseClient databaseClient;
+    private final QueryMetrics queryMetrics;
 
-    public QueryService(QueryCacheService queryCacheService, DatabaseClient databaseClient) {
+    public QueryService(QueryCacheService queryCacheService, DatabaseClient databaseClient, QueryMetrics queryMetrics) {
         this.queryCacheService = queryCacheService;
         this.databaseClient = databaseClient;
+        this.queryMetrics = queryMetrics;
     }
 
     public Mono<String> executeSingleQuery(String templateId, Map<String, Object> params) {
-        return queryCacheService.getQueryByTemplateId(templateId)
-            .flatMap(query -> {
-                String finalQuery = applyParams(query, params);
-                return databaseClient.sql(finalQuery)
+        return queryCacheService.getTemplate(templateId)
+            .flatMap(template -> {
+                return bind(template, params)
                     .fetch()
                     .first()
                     .map(result -> result.toString());
@@ -35,31 +40,33 @@ public class QueryService {
     }
 
     public Mono<Void> executeProcedure(String templateId, Map<String, Object> inParams, Map<String, Object> outParams) {
-        return queryCacheService.getQueryByTemplateId(templateId)
-            .flatMap(query -> {
-                String finalQuery = applyParams(query, inParams);
-                return databaseClient.sql(finalQuery)
+        return queryCacheService.getTemplate(templateId)
+            .flatMap(template -> {
+                return bind(template, inParams)
                     .then();
             });
     }
 
-    private String applyParams(String query, Map<String, Object> params) {
-        for (Map.Entry<String, Object> param : params.entrySet()) {
-            query = query.replace(":" + param.getKey(), param.getValue().toString());
+    private DatabaseClient.GenericExecuteSpec bind(CompiledTemplate template, Map<String, Object> params) {
+        Object[] values = NamedParameterBinder.toPositional(template, params);
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(template.getSql());
+        // Oracle R2DBC maps no SQL type to Object, so nulls go in as VARCHAR, like in R2dbcQueryExecutor
+        for (int i = 0; i < values.length; i++) {
+            spec = values[i] == null ? spec.bindNull(i, String.class) : spec.bind(i, values[i]);
         }
-        return query;
+        return spec;
     }
 
     public Flux<String> executeQueryWithoutParams(String templateId) {
+        QueryMetrics.PipelineMeters meters = queryMetrics.forTemplate(templateId);
+        AtomicLong rows = new AtomicLong();
         return queryCacheService.getQueryByTemplateId(templateId)
             .flatMapMany(query -> databaseClient.sql(query)
                 .fetch()
                 .all()	
- .doOnNext(result -> System.out.println("Result: " + result))	
-                .doOnError(e -> {
-                // Log error details
-                System.err.println("Error executing query: " + e.getMessage());
-            })
+                .doOnNext(result -> rows.incrementAndGet())
+                .doOnComplete(() -> meters.recordRows(rows.get()))
+                .doOnError(meters::recordError)
             .onErrorResume(e -> {
                 // Fallback logic (e.g., return an empty result)
                 return Flux.just("An error occurred, returning fallback value.");
@@ -70,23 +77,23 @@ public class QueryService {
 
 
 public Flux<Map<String, Object>> executeQueryForList(String templateName, Map<String, Object> params) {
+    QueryMetrics.PipelineMeters meters = queryMetrics.forTemplate(templateName);
+    AtomicLong rows = new AtomicLong();
     return queryCacheService.getQueryByTemplateName(templateName)
         .flatMapMany(query -> {
-            System.out.println("Executing query: " + query);
             DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(query);
 
             // Bind parameters to the query
             for (Map.Entry<String, Object> param : params.entrySet()) {
                 spec = spec.bind(param.getKey(), param.getValue());
-                System.out.println("Binding param: " + param.getKey() + " = " + param.getValue());
             }
 
             return spec.fetch().all()
-                .doOnNext(row -> System.out.println("Fetched row: " + row))
-                .doOnError(e -> System.err.println("Error during fetch: " + e.getMessage()));
+                .doOnNext(row -> rows.incrementAndGet())
+                .doOnComplete(() -> meters.recordRows(rows.get()));
         })
         .onErrorResume(e -> {
-            System.err.println("Error executing query: " + e.getMessage());
+            meters.recordError(e);
             return Flux.empty();
         });
 }
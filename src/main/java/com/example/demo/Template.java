@@ -10,6 +10,8 @@ public class Template {
     private Long id;
     private String templateId;
     private String query;
+    private String readOnly; // 'Y' marks a side-effect-free SELECT
+    private Integer cacheTtlSeconds; // Result cache TTL; null or 0 disables caching
 
     // Getters and setters
 }
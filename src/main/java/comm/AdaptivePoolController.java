@@ -0,0 +1,209 @@
+package com.example.service;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resizes the Hikari pool at runtime between {@code floor} and {@code ceiling}.
+ * <p>
+ * Every tick it looks at threads waiting for a connection, peak active connections, and
+ * the mean pool-acquire and statement-execute latency of all templates and procedures
+ * since the previous tick. Callers waiting, or a slow acquire, grow the pool, unless
+ * execute latency is well above its baseline: then the database itself is the bottleneck
+ * and more sessions would only add load. A pool that stays mostly idle shrinks one
+ * connection at a time.
+ * <p>
+ * Hysteresis keeps the size from oscillating:
+ * <ul>
+ *     <li>growth needs {@code grow-after-ticks} pressured ticks in a row;</li>
+ *     <li>shrinking needs {@code shrink-after-ticks} idle ticks in a row;</li>
+ *     <li>nothing changes within {@code cooldown-ms} of the last resize.</li>
+ * </ul>
+ * The database bulkheads are resized along with the pool.
+ */
+@Component
+@ConditionalOnProperty(name = "query.pool.adaptive.enabled", havingValue = "true")
+public class AdaptivePoolController {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptivePoolController.class);
+
+    private final HikariDataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    private final DatabaseSchedulers databaseSchedulers;
+    private final int floor;
+    private final int ceiling;
+    private final int growStep;
+    private final double growAcquireMillis;
+    private final double shrinkUtilization;
+    private final double loadFactor;
+    private final int growAfterTicks;
+    private final int shrinkAfterTicks;
+    private final long cooldownMillis;
+    private final int configuredMinimumIdle;
+
+    // State below is only touched from the scheduled tick
+    private int pressuredTicks;
+    private int idleTicks;
+    private long lastResize;
+    private int peakActive;
+    private double executeBaselineMillis = Double.NaN;
+    private final LatencyWindow acquire = new LatencyWindow("query.pool.acquire");
+    private final LatencyWindow execute = new LatencyWindow("query.execute");
+
+    public AdaptivePoolController(HikariDataSource dataSource, MeterRegistry meterRegistry,
+                                  DatabaseSchedulers databaseSchedulers,
+                                  @Value("${query.pool.adaptive.floor:5}") int floor,
+                                  @Value("${query.pool.adaptive.ceiling:30}") int ceiling,
+                                  @Value("${query.pool.adaptive.grow-step:2}") int growStep,
+                                  @Value("${query.pool.adaptive.grow-acquire-ms:50}") double growAcquireMillis,
+                                  @Value("${query.pool.adaptive.shrink-utilization:0.5}") double shrinkUtilization,
+                                  @Value("${query.pool.adaptive.load-factor:2.0}") double loadFactor,
+                                  @Value("${query.pool.adaptive.grow-after-ticks:2}") int growAfterTicks,
+                                  @Value("${query.pool.adaptive.shrink-after-ticks:6}") int shrinkAfterTicks,
+                                  @Value("${query.pool.adaptive.cooldown-ms:30000}") long cooldownMillis) {
+        if (floor < 1 || ceiling < floor) {
+            throw new IllegalArgumentException("Adaptive pool needs 1 <= floor <= ceiling, got " + floor + ".." + ceiling);
+        }
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+        this.databaseSchedulers = databaseSchedulers;
+        this.floor = floor;
+        this.ceiling = ceiling;
+        this.growStep = Math.max(1, growStep);
+        this.growAcquireMillis = growAcquireMillis;
+        this.shrinkUtilization = shrinkUtilization;
+        this.loadFactor = loadFactor;
+        this.growAfterTicks = Math.max(1, growAfterTicks);
+        this.shrinkAfterTicks = Math.max(1, shrinkAfterTicks);
+        this.cooldownMillis = cooldownMillis;
+        this.configuredMinimumIdle = dataSource.getMinimumIdle();
+
+        int initial = Math.max(floor, Math.min(ceiling, dataSource.getMaximumPoolSize()));
+        if (initial != dataSource.getMaximumPoolSize()) {
+            resize(initial, "configured size outside " + floor + ".." + ceiling);
+        }
+        Gauge.builder("query.pool.adaptive.size", dataSource, HikariDataSource::getMaximumPoolSize)
+                .description("Maximum pool size chosen by the adaptive pool controller")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Samples active connections between decisions, so a short burst is not missed.
+     */
+    @Scheduled(fixedRateString = "${query.pool.adaptive.sample-interval-ms:1000}")
+    public synchronized void sample() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool != null) {
+            peakActive = Math.max(peakActive, pool.getActiveConnections());
+        }
+    }
+
+    @Scheduled(fixedRateString = "${query.pool.adaptive.interval-ms:10000}")
+    public synchronized void tick() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            return;
+        }
+        int size = dataSource.getMaximumPoolSize();
+        int waiting = pool.getThreadsAwaitingConnection();
+        int active = Math.max(peakActive, pool.getActiveConnections());
+        peakActive = 0;
+        double acquireMillis = acquire.meanMillisSinceLastCall();
+        double executeMillis = execute.meanMillisSinceLastCall();
+
+        boolean pressured = waiting > 0 || acquireMillis > growAcquireMillis;
+        boolean idle = waiting == 0 && active < size * shrinkUtilization;
+        // A database already slower than usual gets no extra sessions
+        boolean databaseSaturated = !Double.isNaN(executeBaselineMillis) && !Double.isNaN(executeMillis)
+                && executeMillis > executeBaselineMillis * loadFactor;
+        if (!pressured && !Double.isNaN(executeMillis)) {
+            // Baseline from unpressured ticks only, as a slow-moving average
+            executeBaselineMillis = Double.isNaN(executeBaselineMillis)
+                    ? executeMillis
+                    : executeBaselineMillis * 0.9 + executeMillis * 0.1;
+        }
+
+        pressuredTicks = pressured ? pressuredTicks + 1 : 0;
+        idleTicks = idle ? idleTicks + 1 : 0;
+        if (System.currentTimeMillis() - lastResize < cooldownMillis) {
+            return;
+        }
+
+        if (pressuredTicks >= growAfterTicks && size < ceiling) {
+            if (databaseSaturated) {
+                log.debug("Pool under pressure but execute latency {} ms exceeds {}x baseline {} ms; not growing",
+                        executeMillis, loadFactor, executeBaselineMillis);
+                return;
+            }
+            resize(Math.min(ceiling, size + growStep), waiting + " waiting, acquire " + format(acquireMillis) + " ms");
+        } else if (idleTicks >= shrinkAfterTicks && size > floor) {
+            resize(size - 1, "peak " + active + " of " + size + " connections active");
+        }
+    }
+
+    private void resize(int target, String reason) {
+        HikariConfigMXBean config = dataSource.getHikariConfigMXBean();
+        int previous = config.getMaximumPoolSize();
+        if (target > previous) {
+            config.setMaximumPoolSize(target);
+            config.setMinimumIdle(Math.min(configuredMinimumIdle, target));
+        } else {
+            // Idle connections above the new size are retired by Hikari's housekeeper
+            config.setMinimumIdle(Math.min(configuredMinimumIdle, target));
+            config.setMaximumPoolSize(target);
+        }
+        databaseSchedulers.poolResized(target);
+        lastResize = System.currentTimeMillis();
+        pressuredTicks = 0;
+        idleTicks = 0;
+        log.info("Connection pool resized from {} to {} ({})", previous, target, reason);
+    }
+
+    private static String format(double millis) {
+        return Double.isNaN(millis) ? "n/a" : String.format("%.1f", millis);
+    }
+
+    /**
+     * Mean latency of every timer with a given name (all templates and procedures) over
+     * the interval since the previous call.
+     */
+    private final class LatencyWindow {
+        private final String name;
+        private long lastCount;
+        private double lastTotalNanos;
+
+        LatencyWindow(String name) {
+            this.name = name;
+        }
+
+        double meanMillisSinceLastCall() {
+            long count = 0;
+            double totalNanos = 0;
+            for (Timer timer : meterRegistry.find(name).timers()) {
+                count += timer.count();
+                totalNanos += timer.totalTime(TimeUnit.NANOSECONDS);
+            }
+            long deltaCount = count - lastCount;
+            double deltaNanos = totalNanos - lastTotalNanos;
+            lastCount = count;
+            lastTotalNanos = totalNanos;
+            // Timers registered or removed in between can make the delta meaningless
+            if (deltaCount <= 0 || deltaNanos < 0) {
+                return Double.NaN;
+            }
+            return deltaNanos / deltaCount / 1_000_000.0;
+        }
+    }
+}
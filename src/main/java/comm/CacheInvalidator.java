@@ -0,0 +1,123 @@
+package com.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Evicts result cache entries when the tables behind a cached template change. The
+ * first {@link TableChangeSource} that starts successfully is used; with none
+ * configured, cached results simply live until their TTL.
+ */
+@Component
+public class CacheInvalidator implements TableChangeSource.Listener {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidator.class);
+
+    private final TemplateRegistry templateRegistry;
+    private final ResultCache resultCache;
+    private final List<TableChangeSource> sources;
+    private volatile TableChangeSource active;
+    private volatile TableIndex index = new TableIndex(-1L, Collections.emptyMap());
+
+    public CacheInvalidator(TemplateRegistry templateRegistry, ResultCache resultCache,
+                            ObjectProvider<TableChangeSource> sources) {
+        this.templateRegistry = templateRegistry;
+        this.resultCache = resultCache;
+        this.sources = sources.orderedStream().collect(Collectors.toList());
+    }
+
+    @PostConstruct
+    public void start() {
+        for (TableChangeSource source : sources) {
+            if (source.start(this)) {
+                active = source;
+                log.info("Result cache invalidation driven by {}", source.getClass().getSimpleName());
+                return;
+            }
+        }
+        if (!sources.isEmpty()) {
+            log.warn("No table change source could be started; cached results expire by TTL only");
+        }
+    }
+
+    /**
+     * Registers the tables of the current snapshot's cacheable templates with the active
+     * source. Called after every template load or refresh.
+     */
+    public void templatesChanged() {
+        TableChangeSource source = active;
+        if (source != null) {
+            source.watch(currentIndex().byTable.keySet());
+        }
+    }
+
+    @Override
+    public void tablesChanged(Set<String> tables) {
+        Map<String, List<String>> byTable = currentIndex().byTable;
+        Set<String> templateIds = new HashSet<>();
+        for (String table : tables) {
+            templateIds.addAll(byTable.getOrDefault(table, Collections.emptyList()));
+        }
+        if (!templateIds.isEmpty()) {
+            log.debug("Tables {} changed; evicting templates {}", tables, templateIds);
+            resultCache.invalidateTemplates(templateIds);
+        }
+    }
+
+    @Override
+    public void everythingChanged() {
+        resultCache.invalidateAll();
+    }
+
+    @PreDestroy
+    public void stop() {
+        TableChangeSource source = active;
+        active = null;
+        if (source != null) {
+            source.close();
+        }
+    }
+
+    // Table -> cacheable templates reading it, rebuilt whenever the snapshot version moves
+    private TableIndex currentIndex() {
+        TemplateSnapshot snapshot = templateRegistry.current();
+        TableIndex current = index;
+        if (current.version == snapshot.getVersion()) {
+            return current;
+        }
+        Map<String, List<String>> byTable = new HashMap<>();
+        for (CompiledTemplate template : snapshot.getTemplates().values()) {
+            if (template.isResultCacheable()) {
+                for (String table : template.getTables()) {
+                    byTable.computeIfAbsent(table, t -> new ArrayList<>()).add(template.getTemplateId());
+                }
+            }
+        }
+        current = new TableIndex(snapshot.getVersion(), byTable);
+        index = current;
+        return current;
+    }
+
+    private static final class TableIndex {
+        private final long version;
+        private final Map<String, List<String>> byTable;
+
+        TableIndex(long version, Map<String, List<String>> byTable) {
+            this.version = version;
+            this.byTable = byTable;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.service;
+
+import oracle.jdbc.OracleStatement;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * A statement borrowed from {@link StatementCache}. Closing it hands the statement
+ * back to the connection's cache under its key instead of really closing it.
+ */
+public final class CachedStatement<T extends PreparedStatement> implements AutoCloseable {
+
+    private final T statement;
+    private final String key;
+
+    CachedStatement(T statement, String key) {
+        this.statement = statement;
+        this.key = key;
+    }
+
+    public T get() {
+        return statement;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        statement.unwrap(OracleStatement.class).closeWithKey(key);
+    }
+}
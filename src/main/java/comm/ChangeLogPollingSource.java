@@ -0,0 +1,138 @@
+package com.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Table change feed that polls a change-log table filled by triggers on the source
+ * tables, e.g. {@code query_change_log(change_id NUMBER, table_name VARCHAR2(128))}.
+ * Uses plain SQL only, so it also runs against an embedded database.
+ * <p>
+ * Sequence values are handed out at insert time but become visible at commit, so an
+ * entry can show up after entries with higher ids. Every poll therefore re-reads the
+ * last {@code overlap-ids} ids and skips the ones it has already reported.
+ */
+@Component
+@Order(2)
+@ConditionalOnProperty(name = "query.result-cache.invalidation.polling.enabled", havingValue = "true")
+public class ChangeLogPollingSource implements TableChangeSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeLogPollingSource.class);
+
+    private final DataSource dataSource;
+    private final String changeLogTable;
+    private final long overlapIds;
+    private volatile Listener listener;
+    private volatile Set<String> watched = Collections.emptySet();
+    private long lastChangeId;
+    // Ids within the overlap window that were already reported
+    private final NavigableSet<Long> seenChangeIds = new TreeSet<>();
+
+    public ChangeLogPollingSource(DataSource dataSource,
+                                  @Value("${query.result-cache.invalidation.polling.table:query_change_log}") String changeLogTable,
+                                  @Value("${query.result-cache.invalidation.polling.overlap-ids:1000}") long overlapIds) {
+        this.dataSource = dataSource;
+        this.changeLogTable = changeLogTable;
+        this.overlapIds = Math.max(0, overlapIds);
+    }
+
+    @Override
+    public synchronized boolean start(Listener listener) {
+        // Older entries describe changes that happened before anything was cached
+        String sql = "SELECT change_id FROM " + changeLogTable
+                + " WHERE change_id > (SELECT MAX(change_id) FROM " + changeLogTable + ") - ?";
+        lastChangeId = 0L;
+        seenChangeIds.clear();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, overlapIds + 1);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    long changeId = resultSet.getLong(1);
+                    seenChangeIds.add(changeId);
+                    lastChangeId = Math.max(lastChangeId, changeId);
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Change log table {} unavailable", changeLogTable, e);
+            return false;
+        }
+        this.listener = listener;
+        return true;
+    }
+
+    @Override
+    public void watch(Set<String> tables) {
+        watched = Collections.unmodifiableSet(new HashSet<>(tables));
+    }
+
+    /**
+     * Reads entries from the overlap window before the highest change id seen onwards and
+     * reports the watched tables among the ones not reported yet. A failed poll leaves the
+     * position untouched, so the next one picks the entries up.
+     */
+    @Scheduled(fixedDelayString = "${query.result-cache.invalidation.polling.interval-ms:1000}")
+    public synchronized void poll() {
+        Listener current = listener;
+        if (current == null) {
+            return;
+        }
+        String sql = "SELECT change_id, table_name FROM " + changeLogTable + " WHERE change_id > ? ORDER BY change_id";
+        Set<String> changed = new HashSet<>();
+        List<Long> newIds = new ArrayList<>();
+        long position = lastChangeId;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, lastChangeId - overlapIds);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    long changeId = resultSet.getLong(1);
+                    if (seenChangeIds.contains(changeId)) {
+                        continue;
+                    }
+                    newIds.add(changeId);
+                    position = Math.max(position, changeId);
+                    String table = TemplateCompiler.tableKey(resultSet.getString(2));
+                    changed.add(table);
+                    // The session schema is unknown here, so templates naming the table without
+                    // a schema are evicted too; evicting too much only costs a reload
+                    changed.add(TemplateCompiler.unqualifiedTableKey(table));
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to poll change log table {}", changeLogTable, e);
+            return;
+        }
+        lastChangeId = position;
+        seenChangeIds.addAll(newIds);
+        // Ids that fell out of the window are never read again
+        seenChangeIds.headSet(lastChangeId - overlapIds, true).clear();
+        changed.retainAll(watched);
+        if (!changed.isEmpty()) {
+            current.tablesChanged(changed);
+        }
+    }
+
+    @Override
+    public void close() {
+        listener = null;
+    }
+}
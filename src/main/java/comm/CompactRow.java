@@ -0,0 +1,72 @@
+package com.example.service;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only result row backed by a flat value array and a shared {@link RowLayout}.
+ * It is a {@code Map}, so it serializes to the same JSON object as the HashMap rows
+ * it replaces, but costs one array per row instead of a table of entries.
+ */
+public final class CompactRow extends AbstractMap<String, Object> {
+
+    private final RowLayout layout;
+    private final Object[] values;
+
+    CompactRow(RowLayout layout, Object[] values) {
+        this.layout = layout;
+        this.values = values;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int slot = layout.slotOf(key);
+        return slot < 0 ? null : values[slot];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return layout.slotOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Object>>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new Iterator<Map.Entry<String, Object>>() {
+                    private int slot;
+
+                    @Override
+                    public boolean hasNext() {
+                        return slot < values.length;
+                    }
+
+                    @Override
+                    public Map.Entry<String, Object> next() {
+                        if (slot >= values.length) {
+                            throw new NoSuchElementException();
+                        }
+                        Map.Entry<String, Object> entry = new SimpleImmutableEntry<>(layout.nameAt(slot), values[slot]);
+                        slot++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+        };
+    }
+}
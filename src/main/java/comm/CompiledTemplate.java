@@ -0,0 +1,226 @@
+package com.example.service;
+
+import java.sql.ParameterMetaData;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A db_template row parsed once at load time: JDBC-ready SQL with every named
+ * placeholder turned into {@code ?}, the bind names in marker order and the
+ * statement kind. Instances are immutable apart from the row-mapper and bind-type slots.
+ */
+public final class CompiledTemplate {
+
+    private final String templateId;
+    private final String originalSql;
+    private final String sql;
+    private final StatementKind kind;
+    // One entry per bind marker; null for plain '?' markers
+    private final List<String> parameterNames;
+    // Named parameter -> 1-based JDBC positions it occupies
+    private final Map<String, int[]> parameterPositions;
+    private final long revision;
+    private final boolean readOnly;
+    private final Duration cacheTtl;
+    private final Duration slowThreshold;
+    // Tables a query reads from, normalized by TemplateCompiler.tableKey; empty for DML and calls
+    private final Set<String> tables;
+    // Batchable lookups only: the query with its key bound as a collection, and the result column holding the key
+    private final String batchSql;
+    private final String batchKey;
+    // The db_template row this was compiled from; an identical row reuses this compilation
+    private final TemplateDefinition definition;
+
+    // Row-mapper slot: result layout resolved by the first execution and shared by later ones
+    private volatile RowLayout rowLayout;
+    // Bind-type slot: JDBC type of each marker, described once, for engines that must type a null
+    private volatile int[] parameterSqlTypes;
+    // Set once a batched execution shows batchKey is not a column of its result
+    private volatile boolean batchKeyMissing;
+
+    CompiledTemplate(String templateId, String originalSql, String sql, StatementKind kind,
+                     List<String> parameterNames, Map<String, int[]> parameterPositions, long revision,
+                     boolean readOnly, Duration cacheTtl, Duration slowThreshold, Set<String> tables,
+                     String batchSql, String batchKey, TemplateDefinition definition) {
+        this.templateId = templateId;
+        this.originalSql = originalSql;
+        this.sql = sql;
+        this.kind = kind;
+        this.parameterNames = Collections.unmodifiableList(parameterNames);
+        this.parameterPositions = Collections.unmodifiableMap(parameterPositions);
+        this.revision = revision;
+        this.readOnly = readOnly;
+        this.cacheTtl = cacheTtl;
+        this.slowThreshold = slowThreshold;
+        this.tables = tables;
+        this.batchSql = batchSql;
+        this.batchKey = batchKey;
+        this.definition = definition;
+    }
+
+    public String getTemplateId() {
+        return templateId;
+    }
+
+    public TemplateDefinition getDefinition() {
+        return definition;
+    }
+
+    public String getOriginalSql() {
+        return originalSql;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public StatementKind getKind() {
+        return kind;
+    }
+
+    public boolean isQuery() {
+        return kind == StatementKind.QUERY;
+    }
+
+    public List<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    public Map<String, int[]> getParameterPositions() {
+        return parameterPositions;
+    }
+
+    public int getParameterCount() {
+        return parameterNames.size();
+    }
+
+    /**
+     * Distinguishes two compilations of the same template id, e.g. before and after a refresh.
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public Duration getCacheTtl() {
+        return cacheTtl;
+    }
+
+    /**
+     * Per-template slow-query threshold, or null to use the global one.
+     */
+    public Duration getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    public Set<String> getTables() {
+        return tables;
+    }
+
+    /**
+     * Whether single-key lookups of this template may be coalesced into one
+     * {@code IN (SELECT COLUMN_VALUE FROM TABLE(?))} query; false once the batched
+     * query turned out not to select its key column.
+     */
+    public boolean isBatchable() {
+        return batchSql != null && !batchKeyMissing;
+    }
+
+    /**
+     * Stops coalescing this template: its rows cannot be told apart by key, so every
+     * lookup would come back empty. Later lookups run the plain query.
+     */
+    void markBatchKeyMissing() {
+        batchKeyMissing = true;
+    }
+
+    public String getBatchSql() {
+        return batchSql;
+    }
+
+    /**
+     * Result column whose value tells which lookup a row of the batched query belongs to.
+     */
+    public String getBatchKey() {
+        return batchKey;
+    }
+
+    /**
+     * Only read-only SELECTs with a positive TTL may be served from the result cache.
+     */
+    public boolean isResultCacheable() {
+        return readOnly && kind == StatementKind.QUERY && cacheTtl != null && !cacheTtl.isZero() && !cacheTtl.isNegative();
+    }
+
+    public void checkParameterCount(int actual) {
+        if (actual != parameterNames.size()) {
+            throw new IllegalArgumentException("Template " + templateId + " expects " + parameterNames.size()
+                    + " parameters but got " + actual);
+        }
+    }
+
+    /**
+     * Returns the result layout, resolving it from {@code metaData} only on the first
+     * execution (or if the column count no longer matches).
+     */
+    public RowLayout rowLayout(ResultSetMetaData metaData) throws SQLException {
+        RowLayout layout = rowLayout;
+        if (layout == null || layout.getColumnCount() != metaData.getColumnCount()) {
+            layout = RowLayout.of(metaData);
+            rowLayout = layout;
+        }
+        return layout;
+    }
+
+    /**
+     * The JDBC type of each marker (index 0 is the first), or null if the template was
+     * never described.
+     */
+    public int[] getParameterSqlTypes() {
+        return parameterSqlTypes;
+    }
+
+    /**
+     * Returns the marker types, resolving them from {@code metaData} only the first time.
+     * Markers the driver cannot describe, or all of them when {@code metaData} is null,
+     * are taken as {@link Types#VARCHAR}.
+     */
+    public int[] parameterSqlTypes(ParameterMetaData metaData) {
+        int[] types = parameterSqlTypes;
+        if (types == null) {
+            types = new int[parameterNames.size()];
+            Arrays.fill(types, Types.VARCHAR);
+            for (int i = 0; metaData != null && i < types.length; i++) {
+                try {
+                    types[i] = metaData.getParameterType(i + 1);
+                } catch (SQLException e) {
+                    // Oracle cannot describe every marker, e.g. one inside a function call
+                }
+            }
+            parameterSqlTypes = types;
+        }
+        return types;
+    }
+
+    /**
+     * Same as {@link #rowLayout(ResultSetMetaData)} for drivers that only expose column names.
+     */
+    public RowLayout rowLayout(List<String> columnNames) {
+        RowLayout layout = rowLayout;
+        if (layout == null || layout.getColumnCount() != columnNames.size()) {
+            layout = RowLayout.of(columnNames);
+            rowLayout = layout;
+        }
+        return layout;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.service;
+
+import java.util.Arrays;
+
+/**
+ * Per-position parameter types of a procedure or template, resolved once and reused
+ * for every call. Converting a request is a single walk over the values.
+ */
+public final class ConversionPlan {
+
+    // Plans are immutable, so inferred plans of the usual sizes are built once and shared
+    private static final ConversionPlan[] INFERRED = new ConversionPlan[33];
+
+    static {
+        for (int size = 0; size < INFERRED.length; size++) {
+            ParameterType[] types = new ParameterType[size];
+            Arrays.fill(types, ParameterType.INFERRED);
+            INFERRED[size] = new ConversionPlan(types);
+        }
+    }
+
+    private final ParameterType[] types;
+
+    private ConversionPlan(ParameterType[] types) {
+        this.types = types;
+    }
+
+    public static ConversionPlan of(ParameterType... types) {
+        return new ConversionPlan(types.clone());
+    }
+
+    /**
+     * Plan for parameters without declared types; each value's type is inferred from its text.
+     */
+    public static ConversionPlan inferred(int size) {
+        if (size < INFERRED.length) {
+            return INFERRED[size];
+        }
+        ParameterType[] types = new ParameterType[size];
+        Arrays.fill(types, ParameterType.INFERRED);
+        return new ConversionPlan(types);
+    }
+
+    public static ConversionPlan forSqlTypes(int... sqlTypes) {
+        ParameterType[] types = new ParameterType[sqlTypes.length];
+        for (int i = 0; i < sqlTypes.length; i++) {
+            types[i] = ParameterType.forSqlType(sqlTypes[i]);
+        }
+        return new ConversionPlan(types);
+    }
+
+    public int size() {
+        return types.length;
+    }
+
+    public ParameterType typeAt(int index) {
+        return index < types.length ? types[index] : ParameterType.INFERRED;
+    }
+
+    /**
+     * Converts the value for the 0-based {@code index}. Only text is converted; values that
+     * already carry a type (JSON numbers, nulls) are bound as they are.
+     */
+    public Object convert(int index, Object value) {
+        if (!(value instanceof String)) {
+            return value;
+        }
+        ParameterType type = typeAt(index);
+        Object converted = type.parse((String) value);
+        if (converted == null) {
+            throw new IllegalArgumentException("Invalid " + type + " value for parameter " + (index + 1) + ": " + value);
+        }
+        return converted;
+    }
+
+    public Object[] convert(Object[] values) {
+        Object[] converted = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            converted[i] = convert(i, values[i]);
+        }
+        return converted;
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulkhead schedulers for blocking JDBC work, one per kind of call: queries,
+ * procedures and bulk DML. Each has as many threads as its share of the
+ * connection pool (more would only park in getConnection()) and a bounded queue.
+ * Work submitted to a full bulkhead fails at once with a RejectedExecutionException,
+ * which the web layer answers with 503.
+ * <p>
+ * With {@code query.execution.mode=virtual} each call runs on its own virtual thread
+ * instead, so a call parked on Oracle network I/O holds no platform thread. The same
+ * limits apply there as a cap on in-flight calls (threads plus queue size).
+ */
+@Component
+public class DatabaseSchedulers {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseSchedulers.class);
+
+    public enum Mode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    private final Mode mode;
+    private final Bulkhead query;
+    private final Bulkhead procedure;
+    private final Bulkhead bulk;
+
+    public DatabaseSchedulers(DataSource dataSource, MeterRegistry meterRegistry,
+                              @Value("${query.bulkhead.pool-size:10}") int defaultPoolSize,
+                              @Value("${query.bulkhead.query.pool-share:0.6}") double queryShare,
+                              @Value("${query.bulkhead.procedure.pool-share:0.3}") double procedureShare,
+                              @Value("${query.bulkhead.bulk.pool-share:0.1}") double bulkShare,
+                              @Value("${query.bulkhead.queue-size:100}") int queueSize,
+                              @Value("${query.execution.mode:platform}") Mode mode) {
+        // The pool size of a Hikari pool is authoritative; the property covers other data sources
+        int poolSize = dataSource instanceof HikariDataSource
+                ? ((HikariDataSource) dataSource).getMaximumPoolSize()
+                : defaultPoolSize;
+        this.mode = mode;
+        this.query = new Bulkhead("query", poolSize, queryShare, queueSize, mode, meterRegistry);
+        this.procedure = new Bulkhead("procedure", poolSize, procedureShare, queueSize, mode, meterRegistry);
+        this.bulk = new Bulkhead("bulk", poolSize, bulkShare, queueSize, mode, meterRegistry);
+        log.info("Database bulkheads ({} threads) for a pool of {}: query={}, procedure={}, bulk={}",
+                mode, poolSize, query.threads, procedure.threads, bulk.threads);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Resizes every bulkhead to its share of a connection pool that now holds
+     * {@code poolSize} connections. Running calls are not interrupted.
+     */
+    public void poolResized(int poolSize) {
+        query.resize(poolSize);
+        procedure.resize(poolSize);
+        bulk.resize(poolSize);
+        log.info("Database bulkheads resized for a pool of {}: query={}, procedure={}, bulk={}",
+                poolSize, query.threads, procedure.threads, bulk.threads);
+    }
+
+    public Scheduler query() {
+        return query.scheduler;
+    }
+
+    public Scheduler procedure() {
+        return procedure.scheduler;
+    }
+
+    public Scheduler bulk() {
+        return bulk.scheduler;
+    }
+
+    @PreDestroy
+    public void dispose() {
+        query.scheduler.dispose();
+        procedure.scheduler.dispose();
+        bulk.scheduler.dispose();
+    }
+
+    private static int threadsFor(int poolSize, double share) {
+        return Math.max(1, (int) Math.round(poolSize * share));
+    }
+
+    private static final class Bulkhead {
+        private final double share;
+        private final int queueSize;
+        private final Scheduler scheduler;
+        // Exactly one of the two is set, depending on the mode
+        private final ThreadPoolExecutor platformExecutor;
+        private final VirtualThreadExecutor virtualExecutor;
+        private volatile int threads;
+
+        Bulkhead(String name, int poolSize, double share, int queueSize, Mode mode, MeterRegistry meterRegistry) {
+            this.share = share;
+            this.queueSize = queueSize;
+            this.threads = threadsFor(poolSize, share);
+            if (mode == Mode.VIRTUAL) {
+                VirtualThreadExecutor executor = new VirtualThreadExecutor("db-" + name + "-", threads + queueSize);
+                this.platformExecutor = null;
+                this.virtualExecutor = executor;
+                this.scheduler = Schedulers.fromExecutorService(executor, "db-" + name);
+
+                Gauge.builder("query.bulkhead.active", executor, VirtualThreadExecutor::inFlight)
+                        .description("Bulkhead calls running on a virtual thread")
+                        .tag("bulkhead", name)
+                        .register(meterRegistry);
+                return;
+            }
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueSize), namedThreads("db-" + name + "-"),
+                    new ThreadPoolExecutor.AbortPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            this.platformExecutor = executor;
+            this.virtualExecutor = null;
+            this.scheduler = Schedulers.fromExecutorService(executor, "db-" + name);
+
+            Gauge.builder("query.bulkhead.queue.depth", executor, e -> e.getQueue().size())
+                    .description("Tasks waiting for a bulkhead thread")
+                    .tag("bulkhead", name)
+                    .register(meterRegistry);
+            Gauge.builder("query.bulkhead.active", executor, ThreadPoolExecutor::getActiveCount)
+                    .description("Bulkhead threads running a task")
+                    .tag("bulkhead", name)
+                    .register(meterRegistry);
+        }
+
+        synchronized void resize(int poolSize) {
+            int target = threadsFor(poolSize, share);
+            if (virtualExecutor != null) {
+                virtualExecutor.setMaxInFlight(target + queueSize);
+            } else if (target > platformExecutor.getMaximumPoolSize()) {
+                // The maximum may never drop below the core size, so the order depends on the direction
+                platformExecutor.setMaximumPoolSize(target);
+                platformExecutor.setCorePoolSize(target);
+            } else {
+                platformExecutor.setCorePoolSize(target);
+                platformExecutor.setMaximumPoolSize(target);
+            }
+            threads = target;
+        }
+
+        private static ThreadFactory namedThreads(String prefix) {
+            AtomicInteger counter = new AtomicInteger();
+            return runnable -> {
+                Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+
+    /**
+     * Virtual-thread-per-task executor that rejects work once {@code maxInFlight} calls
+     * are running, mirroring the bounded queue of the platform-thread bulkheads. Waiting
+     * for a connection stays cheap here, but past the pool size it only adds latency.
+     */
+    private static final class VirtualThreadExecutor extends AbstractExecutorService {
+        private final ExecutorService delegate;
+        private final ResizableSemaphore permits;
+        private volatile int maxInFlight;
+
+        VirtualThreadExecutor(String prefix, int maxInFlight) {
+            this.delegate = newVirtualThreadPerTaskExecutor(prefix);
+            this.permits = new ResizableSemaphore(maxInFlight);
+            this.maxInFlight = maxInFlight;
+        }
+
+        /**
+         * {@code Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 1).factory())},
+         * looked up reflectively: both are Java 21 API and the service builds for Java 17, so
+         * only the virtual mode needs a Java 21 runtime.
+         */
+        private static ExecutorService newVirtualThreadPerTaskExecutor(String prefix) {
+            try {
+                Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+                ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+                return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                        .invoke(null, factory);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("query.execution.mode=virtual needs Java 21, running "
+                        + Runtime.version(), e);
+            }
+        }
+
+        int inFlight() {
+            return maxInFlight - permits.availablePermits();
+        }
+
+        // Shrinking may leave permits negative for a while; calls already running finish normally
+        synchronized void setMaxInFlight(int target) {
+            int delta = target - maxInFlight;
+            if (delta > 0) {
+                permits.release(delta);
+            } else if (delta < 0) {
+                permits.reduce(-delta);
+            }
+            maxInFlight = target;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (!permits.tryAcquire()) {
+                throw new RejectedExecutionException("More than " + maxInFlight + " calls in flight");
+            }
+            try {
+                delegate.execute(() -> {
+                    try {
+                        command.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+
+    private static final class ResizableSemaphore extends Semaphore {
+        ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        void reduce(int reduction) {
+            reducePermits(reduction);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.service;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * How a multi-query request is run.
+ */
+public enum ExecutionMode {
+    // All templates one after another on a single connection: one consistent session, lowest pool use
+    SEQUENTIAL,
+    // Templates fanned out over several pooled connections: lowest latency
+    PARALLEL;
+
+    public static ExecutionMode from(String value) {
+        if (value == null || value.isEmpty()) {
+            return SEQUENTIAL;
+        }
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown mode '" + value + "', expected one of "
+                    + Arrays.toString(values()).toLowerCase(Locale.ROOT));
+        }
+    }
+}
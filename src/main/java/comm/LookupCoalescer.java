@@ -0,0 +1,230 @@
+package com.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DataLoader-style coalescing of single-key lookups on batchable templates. Lookups of
+ * the same template that arrive within {@code window-ms} of the first one, up to
+ * {@code max-batch-size} of them, are answered by one database call for all their keys;
+ * each caller then gets only the rows carrying its own key.
+ */
+@Component
+public class LookupCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(LookupCoalescer.class);
+
+    /**
+     * Runs the coalesced query for {@code keys} and returns, for each key that matched,
+     * its rows under {@link #keyOf(Object)} of that key. Called on a database bulkhead thread.
+     */
+    @FunctionalInterface
+    public interface BatchQuery {
+        Map<String, List<Map<String, Object>>> load(CompiledTemplate template, List<Object> keys) throws Exception;
+    }
+
+    private final DatabaseSchedulers databaseSchedulers;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    // Template id and revision -> batch still collecting lookups
+    private final Map<String, Batch> pending = new ConcurrentHashMap<>();
+    private final DistributionSummary batchSizes;
+    private final Counter lookups;
+
+    public LookupCoalescer(DatabaseSchedulers databaseSchedulers, MeterRegistry meterRegistry,
+                           @Value("${query.coalesce.window-ms:2}") long windowMillis,
+                           @Value("${query.coalesce.max-batch-size:100}") int maxBatchSize) {
+        this.databaseSchedulers = databaseSchedulers;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.batchSizes = DistributionSummary.builder("query.coalesce.batch.size")
+                .description("Lookups answered by one coalesced query")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.lookups = Counter.builder("query.coalesce.lookups")
+                .description("Single-key lookups routed through the coalescer")
+                .register(meterRegistry);
+    }
+
+    public Mono<List<Map<String, Object>>> load(CompiledTemplate template, Object key, BatchQuery query) {
+        return Mono.create(sink -> {
+            lookups.increment();
+            // Numeric and text keys never share a batch: they bind as different collection types
+            String batchId = template.getTemplateId() + '@' + template.getRevision()
+                    + (key instanceof Number ? "#number" : "#text");
+            // [0]: batch opened by this lookup, [1]: batch this lookup filled up
+            Batch[] outcome = new Batch[2];
+            pending.compute(batchId, (id, current) -> {
+                Batch batch = current;
+                if (batch == null) {
+                    batch = new Batch(template, query);
+                    outcome[0] = batch;
+                }
+                batch.add(key, sink);
+                if (batch.size() >= maxBatchSize) {
+                    outcome[1] = batch;
+                    return null;
+                }
+                return batch;
+            });
+            if (outcome[1] != null) {
+                dispatch(outcome[1]);
+            } else if (outcome[0] != null) {
+                // Timer started only once the batch is in the map, so it always finds it there
+                Batch opened = outcome[0];
+                Schedulers.parallel().schedule(() -> {
+                    if (pending.remove(batchId, opened)) {
+                        dispatch(opened);
+                    }
+                }, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    private void dispatch(Batch batch) {
+        try {
+            databaseSchedulers.query().schedule(() -> run(batch));
+        } catch (RejectedExecutionException e) {
+            batch.fail(e);
+        }
+    }
+
+    private void run(Batch batch) {
+        batchSizes.record(batch.size());
+        List<Object> keys = batch.distinctKeys();
+        if (keys.isEmpty()) {
+            // Only null keys, which match no row; no need to ask the database
+            batch.complete(Collections.emptyMap(), Collections.emptyMap());
+            return;
+        }
+        Map<String, List<Map<String, Object>>> rowsByKey;
+        try {
+            rowsByKey = batch.query.load(batch.template, keys);
+        } catch (Exception e) {
+            // A template that just stopped being batchable fails every key alike; its
+            // callers fall back to the plain query instead
+            if (keys.size() < 2 || !batch.template.isBatchable()) {
+                batch.fail(e);
+                return;
+            }
+            // One bad key (say text that is no number on a NUMBER column) fails the whole
+            // statement; run the keys one by one so it only fails its own callers
+            log.debug("Coalesced lookup of {} keys on {} failed, retrying them one by one",
+                    keys.size(), batch.template.getTemplateId(), e);
+            rowsByKey = new HashMap<>();
+            Map<String, Exception> errors = new HashMap<>();
+            for (Object key : keys) {
+                try {
+                    rowsByKey.putAll(batch.query.load(batch.template, Collections.singletonList(key)));
+                } catch (Exception keyError) {
+                    errors.put(keyOf(key), keyError);
+                }
+            }
+            batch.complete(rowsByKey, errors);
+            return;
+        }
+        batch.complete(rowsByKey, Collections.emptyMap());
+    }
+
+    /**
+     * Identity of a lookup key within a batch. Numbers compare by value, so 42, 42L and
+     * 42.0 are one key; anything else compares by its exact text, so "007" and "7" stay
+     * two keys.
+     */
+    public static String keyOf(Object value) {
+        if (value instanceof Number) {
+            String number = numericKeyOf(value);
+            return number != null ? number : value.toString();
+        }
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Value of a key compared as a number, the way Oracle compares text with a NUMBER
+     * column; null when the key is no number.
+     */
+    public static String numericKeyOf(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            BigDecimal number = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString().trim());
+            return number.stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static final class Batch {
+        private final CompiledTemplate template;
+        private final BatchQuery query;
+        private final List<Object> keys = new ArrayList<>();
+        private final List<MonoSink<List<Map<String, Object>>>> sinks = new ArrayList<>();
+
+        Batch(CompiledTemplate template, BatchQuery query) {
+            this.template = template;
+            this.query = query;
+        }
+
+        // Only called inside pending.compute, before the batch is dispatched
+        void add(Object key, MonoSink<List<Map<String, Object>>> sink) {
+            keys.add(key);
+            sinks.add(sink);
+        }
+
+        int size() {
+            return keys.size();
+        }
+
+        List<Object> distinctKeys() {
+            List<Object> distinct = new ArrayList<>();
+            Set<String> seen = new HashSet<>();
+            for (Object key : keys) {
+                if (key != null && seen.add(keyOf(key))) {
+                    distinct.add(key);
+                }
+            }
+            return distinct;
+        }
+
+        void complete(Map<String, List<Map<String, Object>>> rowsByKey, Map<String, Exception> errors) {
+            for (int i = 0; i < sinks.size(); i++) {
+                String key = keyOf(keys.get(i));
+                Exception error = key == null ? null : errors.get(key);
+                if (error != null) {
+                    sinks.get(i).error(error);
+                    continue;
+                }
+                List<Map<String, Object>> rows = key == null ? null : rowsByKey.get(key);
+                // Callers sharing a key each get their own list, like separate executions would
+                sinks.get(i).success(rows == null ? new ArrayList<>() : new ArrayList<>(rows));
+            }
+        }
+
+        void fail(Throwable error) {
+            for (MonoSink<List<Map<String, Object>>> sink : sinks) {
+                sink.error(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Binds request values to a {@link CompiledTemplate}'s positional markers. The SQL
+ * text never changes between calls, so Oracle can reuse the parsed cursor and the
+ * driver's statement cache can hit.
+ */
+public class NamedParameterBinder {
+
+    /**
+     * Orders named values by marker position. Fails if the template has plain
+     * {@code ?} markers or a name is missing from {@code params}.
+     */
+    public static Object[] toPositional(CompiledTemplate template, Map<String, ?> params) {
+        int count = template.getParameterCount();
+        Object[] values = new Object[count];
+        for (int i = 0; i < count; i++) {
+            String name = template.getParameterNames().get(i);
+            if (name == null) {
+                throw new IllegalArgumentException("Template " + template.getTemplateId()
+                        + " uses positional parameters and cannot be bound by name");
+            }
+            if (!params.containsKey(name)) {
+                throw new IllegalArgumentException("Missing parameter '" + name + "' for template " + template.getTemplateId());
+            }
+            values[i] = params.get(name);
+        }
+        return values;
+    }
+
+    public static void bind(PreparedStatement statement, Object[] values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            statement.setObject(i + 1, values[i]); // Parameters are 1-indexed
+        }
+    }
+
+    public static void bind(PreparedStatement statement, CompiledTemplate template, Map<String, ?> params) throws SQLException {
+        bind(statement, toPositional(template, params));
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import oracle.jdbc.OracleConnection;
+import oracle.jdbc.OracleStatement;
+import oracle.jdbc.dcn.DatabaseChangeEvent;
+import oracle.jdbc.dcn.DatabaseChangeRegistration;
+import oracle.jdbc.dcn.TableChangeDescription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table change feed backed by Oracle Database Change Notification. Needs the
+ * CHANGE NOTIFICATION privilege; without it {@link #start} reports false and the
+ * next source (usually the change-log poller) takes over.
+ * <p>
+ * Notifications name tables as {@code OWNER.TABLE}. They are reported under that key,
+ * and also unqualified when the owner is the session's schema, which is where the
+ * unqualified table names in templates resolve.
+ */
+@Component
+@Order(1)
+@ConditionalOnProperty(name = "query.result-cache.invalidation.dcn.enabled", havingValue = "true")
+public class OracleChangeNotificationSource implements TableChangeSource {
+
+    private static final Logger log = LoggerFactory.getLogger(OracleChangeNotificationSource.class);
+
+    private final HikariDataSource dataSource;
+    private final int localPort;
+    private final Set<String> registered = ConcurrentHashMap.newKeySet();
+    private volatile DatabaseChangeRegistration registration;
+    private volatile String sessionSchema;
+
+    public OracleChangeNotificationSource(HikariDataSource dataSource,
+                                          @Value("${query.result-cache.invalidation.dcn.port:0}") int localPort) {
+        this.dataSource = dataSource;
+        this.localPort = localPort;
+    }
+
+    @Override
+    public boolean start(Listener listener) {
+        Properties properties = new Properties();
+        properties.setProperty(OracleConnection.DCN_NOTIFY_ROWIDS, "false");
+        if (localPort > 0) {
+            properties.setProperty(OracleConnection.NTF_LOCAL_TCP_PORT, String.valueOf(localPort));
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT SYS_CONTEXT('USERENV', 'CURRENT_SCHEMA') FROM DUAL")) {
+                sessionSchema = resultSet.next() ? resultSet.getString(1) : null;
+            }
+            DatabaseChangeRegistration dcr = connection.unwrap(OracleConnection.class)
+                    .registerDatabaseChangeNotification(properties);
+            dcr.addListener(event -> dispatch(event, listener));
+            registration = dcr;
+            return true;
+        } catch (SQLException e) {
+            log.warn("Database change notification unavailable", e);
+            return false;
+        }
+    }
+
+    /**
+     * Adds the tables not yet covered to the registration by running an empty query on
+     * each of them, under its owner-qualified name when it has one, through a statement
+     * bound to it.
+     */
+    @Override
+    public void watch(Set<String> tables) {
+        DatabaseChangeRegistration dcr = registration;
+        if (dcr == null) {
+            return;
+        }
+        Set<String> missing = new HashSet<>(tables);
+        missing.removeAll(registered);
+        if (missing.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.unwrap(OracleStatement.class).setDatabaseChangeRegistration(dcr);
+            for (String table : missing) {
+                try {
+                    statement.executeQuery("SELECT * FROM " + TemplateCompiler.quotedTableName(table)
+                            + " WHERE 1 = 0").close();
+                    registered.add(table);
+                } catch (SQLException e) {
+                    // Also hit by names that are no tables (CTE names, EXTRACT operands), but a real
+                    // table missing here means its templates are never invalidated
+                    log.warn("Could not register {} for change notification; cached results of templates "
+                            + "reading it expire by TTL only: {}", table, e.getMessage());
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to extend change notification registration", e);
+        }
+    }
+
+    private void dispatch(DatabaseChangeEvent event, Listener listener) {
+        if (event.getEventType() != DatabaseChangeEvent.EventType.OBJCHANGE) {
+            log.warn("Change notification event {}; dropping all cached results", event.getEventType());
+            listener.everythingChanged();
+            return;
+        }
+        TableChangeDescription[] descriptions = event.getTableChangeDescription();
+        if (descriptions == null) {
+            listener.everythingChanged();
+            return;
+        }
+        Set<String> tables = new HashSet<>();
+        String schema = sessionSchema;
+        for (TableChangeDescription description : descriptions) {
+            String table = TemplateCompiler.tableKey(description.getTableName());
+            tables.add(table);
+            if (schema != null && table.equals(schema + '.' + TemplateCompiler.unqualifiedTableKey(table))) {
+                tables.add(TemplateCompiler.unqualifiedTableKey(table));
+            }
+        }
+        listener.tablesChanged(tables);
+    }
+
+    @Override
+    public void close() {
+        DatabaseChangeRegistration dcr = registration;
+        registration = null;
+        if (dcr == null) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            connection.unwrap(OracleConnection.class).unregisterDatabaseChangeNotification(dcr);
+        } catch (SQLException e) {
+            log.warn("Failed to unregister change notification", e);
+        }
+    }
+}
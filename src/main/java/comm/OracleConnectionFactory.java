@@ -3,6 +3,7 @@ package com.example.config;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import oracle.jdbc.pool.OracleDataSource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -11,13 +12,23 @@ import java.sql.SQLException;
 @Configuration
 public class OracleConnectionFactory {
 
+    // Pool settings come from spring.datasource.*; the adaptive pool controller may change the size at runtime
     @Bean
-    public HikariDataSource hikariDataSource() throws SQLException {
+    public HikariDataSource hikariDataSource(@Value("${spring.datasource.url}") String url,
+                                             @Value("${spring.datasource.username}") String username,
+                                             @Value("${spring.datasource.password}") String password,
+                                             @Value("${spring.datasource.hikari.pool-name:HikariPool-Oracle}") String poolName,
+                                             @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize,
+                                             @Value("${spring.datasource.hikari.minimum-idle:5}") int minimumIdle,
+                                             @Value("${spring.datasource.hikari.connection-timeout:30000}") long connectionTimeout,
+                                             @Value("${spring.datasource.hikari.idle-timeout:600000}") long idleTimeout,
+                                             @Value("${spring.datasource.hikari.max-lifetime:1800000}") long maxLifetime)
+            throws SQLException {
         // Configure OracleDataSource
         OracleDataSource oracleDataSource = new OracleDataSource();
-        oracleDataSource.setURL("jdbc:oracle:thin:@//localhost:1521/ORCLPDB1");
-        oracleDataSource.setUser("your_username");
-        oracleDataSource.setPassword("your_password");
+        oracleDataSource.setURL(url);
+        oracleDataSource.setUser(username);
+        oracleDataSource.setPassword(password);
 
         // Enable Oracle-specific features
         oracleDataSource.setImplicitCachingEnabled(true);
@@ -26,13 +37,13 @@ public class OracleConnectionFactory {
         // Configure HikariCP with OracleDataSource
         HikariConfig hikariConfig = new HikariConfig();
         hikariConfig.setDataSource(oracleDataSource);
-        hikariConfig.setMaximumPoolSize(10);
-        hikariConfig.setMinimumIdle(5);
-        hikariConfig.setConnectionTimeout(30000);
-        hikariConfig.setIdleTimeout(600000);
-        hikariConfig.setMaxLifetime(1800000);
-        hikariConfig.setPoolName("HikariPool-Oracle");
+        hikariConfig.setMaximumPoolSize(maximumPoolSize);
+        hikariConfig.setMinimumIdle(minimumIdle);
+        hikariConfig.setConnectionTimeout(connectionTimeout);
+        hikariConfig.setIdleTimeout(idleTimeout);
+        hikariConfig.setMaxLifetime(maxLifetime);
+        hikariConfig.setPoolName(poolName);
 
         return new HikariDataSource(hikariConfig);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,223 @@
+package com.example.service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.text.ParsePosition;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Locale;
+
+/**
+ * Target type of a bind parameter that arrives as text. Every parser returns null
+ * instead of throwing when the text does not fit, so conversion never pays for
+ * an exception.
+ */
+public enum ParameterType {
+
+    INTEGER {
+        @Override
+        public Object parse(String value) {
+            return parseInteger(value);
+        }
+    },
+    DECIMAL {
+        @Override
+        public Object parse(String value) {
+            return isDecimal(value) ? new BigDecimal(value) : null;
+        }
+    },
+    DOUBLE {
+        @Override
+        public Object parse(String value) {
+            return isDecimal(value) ? Double.valueOf(value) : null;
+        }
+    },
+    TIMESTAMP {
+        @Override
+        public Object parse(String value) {
+            return parseTimestamp(value);
+        }
+    },
+    STRING {
+        @Override
+        public Object parse(String value) {
+            return value;
+        }
+    },
+    /**
+     * No declared type: integer, then decimal, then {@code dd/MM/yyyy HH.mm} timestamp, else the text itself.
+     */
+    INFERRED {
+        @Override
+        public Object parse(String value) {
+            Object converted = parseInteger(value);
+            if (converted == null && isDecimal(value)) {
+                converted = Double.valueOf(value);
+            }
+            if (converted == null) {
+                converted = parseTimestamp(value);
+            }
+            return converted != null ? converted : value;
+        }
+    };
+
+    // java.time formatters are immutable, so one instance is shared by all threads
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("dd/MM/uuuu HH.mm", Locale.ROOT);
+
+    /**
+     * Converts {@code value}, or returns null if it is not valid for this type.
+     */
+    public abstract Object parse(String value);
+
+    public static ParameterType forSqlType(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return INTEGER;
+            case Types.BIGINT:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return DECIMAL;
+            case Types.FLOAT:
+            case Types.REAL:
+            case Types.DOUBLE:
+                return DOUBLE;
+            case Types.DATE:
+            case Types.TIMESTAMP:
+                return TIMESTAMP;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.CLOB:
+                return STRING;
+            default:
+                return INFERRED;
+        }
+    }
+
+    /**
+     * Maps an Oracle data type name (as in ALL_ARGUMENTS.DATA_TYPE or a request's type hint).
+     */
+    public static ParameterType forTypeName(String typeName) {
+        if (typeName == null) {
+            return INFERRED;
+        }
+        switch (typeName.toUpperCase(Locale.ROOT)) {
+            case "INTEGER":
+            case "PLS_INTEGER":
+            case "BINARY_INTEGER":
+            case "SMALLINT":
+                return INTEGER;
+            case "NUMBER":
+            case "NUMERIC":
+            case "DECIMAL":
+                return DECIMAL;
+            case "FLOAT":
+            case "DOUBLE":
+            case "BINARY_FLOAT":
+            case "BINARY_DOUBLE":
+                return DOUBLE;
+            case "DATE":
+            case "TIMESTAMP":
+                return TIMESTAMP;
+            case "CHAR":
+            case "NCHAR":
+            case "VARCHAR":
+            case "VARCHAR2":
+            case "NVARCHAR2":
+            case "CLOB":
+                return STRING;
+            default:
+                return INFERRED;
+        }
+    }
+
+    static Integer parseInteger(String value) {
+        int length = value.length();
+        if (length == 0 || length > 11) {
+            return null;
+        }
+        int i = value.charAt(0) == '-' || value.charAt(0) == '+' ? 1 : 0;
+        if (i == length) {
+            return null;
+        }
+        long result = 0;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            result = result * 10 + (c - '0');
+        }
+        if (value.charAt(0) == '-') {
+            result = -result;
+        }
+        return result < Integer.MIN_VALUE || result > Integer.MAX_VALUE ? null : (int) result;
+    }
+
+    // Optional sign, digits with at most one '.', optional exponent; the forms both
+    // BigDecimal and Double accept, so the constructors that follow cannot fail
+    static boolean isDecimal(String value) {
+        int length = value.length();
+        int i = 0;
+        if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            i++;
+        }
+        int digits = 0;
+        boolean dot = false;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < length && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+                i++;
+            }
+            int exponentDigits = 0;
+            for (; i < length && value.charAt(i) >= '0' && value.charAt(i) <= '9'; i++) {
+                exponentDigits++;
+            }
+            if (exponentDigits == 0 || exponentDigits > 9) {
+                return false;
+            }
+        }
+        return i == length;
+    }
+
+    static Timestamp parseTimestamp(String value) {
+        ParsePosition position = new ParsePosition(0);
+        TemporalAccessor parsed = DATE_TIME.parseUnresolved(value, position);
+        if (parsed == null || position.getErrorIndex() >= 0 || position.getIndex() != value.length()) {
+            return null;
+        }
+        long year = parsed.getLong(ChronoField.YEAR);
+        long month = parsed.getLong(ChronoField.MONTH_OF_YEAR);
+        long day = parsed.getLong(ChronoField.DAY_OF_MONTH);
+        long hour = parsed.getLong(ChronoField.HOUR_OF_DAY);
+        long minute = parsed.getLong(ChronoField.MINUTE_OF_HOUR);
+        // Range checks up front: LocalDateTime.of would throw on 31/02 or 25.00
+        if (!ChronoField.YEAR.range().isValidValue(year) || month < 1 || month > 12
+                || hour > 23 || minute > 59 || day < 1
+                || day > YearMonth.of((int) year, (int) month).lengthOfMonth()) {
+            return null;
+        }
+        return Timestamp.valueOf(LocalDateTime.of((int) year, (int) month, (int) day, (int) hour, (int) minute));
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.service;
+
+import oracle.jdbc.OracleTypes;
+
+import java.sql.Types;
+import java.util.Locale;
+
+/**
+ * One argument of a stored procedure as described by ALL_ARGUMENTS.
+ */
+public final class ProcedureArgument {
+
+    public enum Direction {
+        IN, OUT, IN_OUT;
+
+        static Direction of(String inOut) {
+            if ("OUT".equals(inOut)) {
+                return OUT;
+            }
+            return "IN/OUT".equals(inOut) ? IN_OUT : IN;
+        }
+    }
+
+    private final String name;
+    // 1-based bind position in the precompiled call string
+    private final int position;
+    private final Direction direction;
+    private final String dataType;
+    private final int sqlType;
+    // Owner-qualified SQL type for collections and objects, e.g. SYS.ODCIVARCHAR2LIST; null otherwise
+    private final String typeName;
+    // Data type of a collection's elements, e.g. VARCHAR2; null for anything else
+    private final String elementType;
+
+    ProcedureArgument(String name, int position, Direction direction, String dataType, String typeName) {
+        this(name, position, direction, dataType, typeName, null);
+    }
+
+    private ProcedureArgument(String name, int position, Direction direction, String dataType, String typeName,
+                              String elementType) {
+        this.name = name;
+        this.position = position;
+        this.direction = direction;
+        this.dataType = dataType;
+        this.sqlType = sqlTypeOf(dataType);
+        this.typeName = typeName;
+        this.elementType = elementType;
+    }
+
+    ProcedureArgument withElementType(String elementType) {
+        return new ProcedureArgument(name, position, direction, dataType, typeName, elementType);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public boolean isIn() {
+        return direction != Direction.OUT;
+    }
+
+    public boolean isOut() {
+        return direction != Direction.IN;
+    }
+
+    public String getDataType() {
+        return dataType;
+    }
+
+    public int getSqlType() {
+        return sqlType;
+    }
+
+    public String getTypeName() {
+        return typeName;
+    }
+
+    public String getElementType() {
+        return elementType;
+    }
+
+    public boolean isCollection() {
+        return sqlType == Types.ARRAY;
+    }
+
+    public boolean isCursor() {
+        return sqlType == OracleTypes.CURSOR;
+    }
+
+    static int sqlTypeOf(String dataType) {
+        switch (dataType.toUpperCase(Locale.ROOT)) {
+            case "NUMBER":
+            case "INTEGER":
+            case "FLOAT":
+            case "PLS_INTEGER":
+            case "BINARY_INTEGER":
+                return Types.NUMERIC;
+            case "BINARY_FLOAT":
+                return Types.FLOAT;
+            case "BINARY_DOUBLE":
+                return Types.DOUBLE;
+            case "CHAR":
+            case "NCHAR":
+                return Types.CHAR;
+            case "VARCHAR2":
+            case "NVARCHAR2":
+            case "LONG":
+                return Types.VARCHAR;
+            case "CLOB":
+            case "NCLOB":
+                return Types.CLOB;
+            case "BLOB":
+                return Types.BLOB;
+            case "RAW":
+                return Types.VARBINARY;
+            case "DATE":
+            case "TIMESTAMP":
+                return Types.TIMESTAMP;
+            case "PL/SQL BOOLEAN":
+                return Types.BOOLEAN;
+            case "REF CURSOR":
+                return OracleTypes.CURSOR;
+            case "TABLE":
+            case "VARRAY":
+            case "PL/SQL TABLE":
+                return Types.ARRAY;
+            case "OBJECT":
+                return Types.STRUCT;
+            default:
+                return Types.OTHER;
+        }
+    }
+}
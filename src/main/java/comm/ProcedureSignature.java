@@ -0,0 +1,79 @@
+package com.example.service;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A stored procedure's arguments plus everything derived from them once: the
+ * {@code {call ...}} string, its anonymous-block form and the conversion plan for
+ * text IN values.
+ */
+public final class ProcedureSignature {
+
+    private final String qualifiedName;
+    private final List<ProcedureArgument> arguments;
+    private final Map<String, ProcedureArgument> byName;
+    private final String callSql;
+    private final String blockSql;
+    private final ConversionPlan conversionPlan;
+    private final Instant loadedAt;
+
+    ProcedureSignature(String qualifiedName, List<ProcedureArgument> arguments, Instant loadedAt) {
+        this.qualifiedName = qualifiedName;
+        this.arguments = Collections.unmodifiableList(arguments);
+        this.loadedAt = loadedAt;
+
+        Map<String, ProcedureArgument> names = new HashMap<>();
+        ParameterType[] types = new ParameterType[arguments.size()];
+        StringBuilder markers = new StringBuilder();
+        for (int i = 0; i < arguments.size(); i++) {
+            ProcedureArgument argument = arguments.get(i);
+            names.put(argument.getName(), argument);
+            types[i] = argument.isIn() ? ParameterType.forTypeName(argument.getDataType()) : ParameterType.STRING;
+            markers.append(i == 0 ? "?" : ", ?");
+        }
+        this.byName = Collections.unmodifiableMap(names);
+        this.callSql = "{call " + qualifiedName + "(" + markers + ")}";
+        this.blockSql = "BEGIN " + qualifiedName + "(" + markers + "); END;";
+        this.conversionPlan = ConversionPlan.of(types);
+    }
+
+    public String getQualifiedName() {
+        return qualifiedName;
+    }
+
+    public List<ProcedureArgument> getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Looks an argument up by name; unquoted names are matched case-insensitively.
+     */
+    public ProcedureArgument getArgument(String name) {
+        ProcedureArgument argument = byName.get(name);
+        return argument != null ? argument : byName.get(name.toUpperCase(Locale.ROOT));
+    }
+
+    public String getCallSql() {
+        return callSql;
+    }
+
+    /**
+     * The same call as a PL/SQL block, for drivers without JDBC escape syntax (R2DBC).
+     */
+    public String getBlockSql() {
+        return blockSql;
+    }
+
+    public ConversionPlan getConversionPlan() {
+        return conversionPlan;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+}
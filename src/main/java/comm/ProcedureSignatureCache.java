@@ -0,0 +1,206 @@
+package com.example.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stored-procedure signatures read from ALL_ARGUMENTS on first use and kept for a TTL,
+ * so a procedure's DDL changes are picked up without a restart. Synonyms are not
+ * resolved; callers name the owning schema (or rely on the current schema).
+ */
+@Component
+public class ProcedureSignatureCache {
+
+    private static final String ARGUMENTS_SQL =
+            "SELECT argument_name, position, in_out, data_type, type_owner, type_name, type_subname, overload, data_level "
+                    + "FROM all_arguments "
+                    + "WHERE owner = NVL(?, SYS_CONTEXT('USERENV', 'CURRENT_SCHEMA')) "
+                    + "AND NVL(package_name, ' ') = NVL(?, ' ') AND object_name = ? AND data_level <= 1 "
+                    + "ORDER BY sequence";
+
+    private final HikariDataSource dataSource;
+    private final Duration ttl;
+    private final Map<String, ProcedureSignature> signatures = new ConcurrentHashMap<>();
+    // Dictionary reads under way, so concurrent misses on one procedure wait for the same one
+    private final Map<String, CompletableFuture<ProcedureSignature>> loading = new ConcurrentHashMap<>();
+
+    public ProcedureSignatureCache(HikariDataSource dataSource,
+                                   @Value("${query.procedure.signature-ttl-ms:300000}") long ttlMillis) {
+        this.dataSource = dataSource;
+        this.ttl = Duration.ofMillis(ttlMillis);
+    }
+
+    /**
+     * Returns the signature of {@code [schema.][packageName.]procedureName}, loading it if it
+     * is not cached or its TTL has passed. Blocks on the data dictionary on a miss; callers
+     * missing the same procedure at once share a single load.
+     */
+    public ProcedureSignature get(String schema, String packageName, String procedureName) throws SQLException {
+        ProcedureSignature cached = getIfFresh(schema, packageName, procedureName);
+        if (cached != null) {
+            return cached;
+        }
+        String owner = dictionaryName(schema);
+        String pkg = dictionaryName(packageName);
+        String name = dictionaryName(procedureName);
+        String key = key(owner, pkg, name);
+        CompletableFuture<ProcedureSignature> load = new CompletableFuture<>();
+        CompletableFuture<ProcedureSignature> inFlight = loading.putIfAbsent(key, load);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        try {
+            // A load that finished between the first check and now already refreshed the entry
+            ProcedureSignature loaded = getIfFresh(schema, packageName, procedureName);
+            if (loaded == null) {
+                loaded = load(owner, pkg, name);
+                signatures.put(key, loaded);
+            }
+            load.complete(loaded);
+            return loaded;
+        } catch (SQLException | RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    // Rethrows the failure of another caller's load as if this caller had run it
+    private static ProcedureSignature await(CompletableFuture<ProcedureSignature> inFlight) throws SQLException {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the cached signature if it is still within its TTL, or null; never blocks.
+     */
+    public ProcedureSignature getIfFresh(String schema, String packageName, String procedureName) {
+        String name = dictionaryName(procedureName);
+        if (name == null) {
+            throw new IllegalArgumentException("Procedure name is required");
+        }
+        ProcedureSignature cached = signatures.get(key(dictionaryName(schema), dictionaryName(packageName), name));
+        if (cached != null && cached.getLoadedAt().plus(ttl).isAfter(Instant.now())) {
+            return cached;
+        }
+        return null;
+    }
+
+    private static String key(String owner, String pkg, String name) {
+        return (owner == null ? "" : owner) + '.' + (pkg == null ? "" : pkg) + '.' + name;
+    }
+
+    public void invalidateAll() {
+        signatures.clear();
+    }
+
+    private ProcedureSignature load(String owner, String pkg, String name) throws SQLException {
+        List<ProcedureArgument> arguments = new ArrayList<>();
+        String overload = null;
+        boolean found = false;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(ARGUMENTS_SQL)) {
+            statement.setString(1, owner);
+            statement.setString(2, pkg);
+            statement.setString(3, name);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    found = true;
+                    String dataType = resultSet.getString("data_type");
+                    if (resultSet.getInt("data_level") == 1) {
+                        // Level-1 rows describe the element of the collection argument just before them
+                        int last = arguments.size() - 1;
+                        if (last >= 0 && arguments.get(last).isCollection() && arguments.get(last).getElementType() == null) {
+                            arguments.set(last, arguments.get(last).withElementType(dataType));
+                        }
+                        continue;
+                    }
+                    String rowOverload = resultSet.getString("overload");
+                    if (overload == null) {
+                        overload = rowOverload;
+                    } else if (!overload.equals(rowOverload)) {
+                        throw new IllegalArgumentException("Procedure " + name + " is overloaded; call it through a template");
+                    }
+                    int position = resultSet.getInt("position");
+                    if (position == 0) {
+                        throw new IllegalArgumentException(name + " is a function, not a procedure");
+                    }
+                    if (dataType == null) {
+                        continue; // Placeholder row of a procedure without arguments
+                    }
+                    arguments.add(new ProcedureArgument(resultSet.getString("argument_name"), position,
+                            ProcedureArgument.Direction.of(resultSet.getString("in_out")), dataType,
+                            typeName(resultSet)));
+                }
+            }
+        }
+        if (!found) {
+            throw new IllegalArgumentException("Unknown procedure: " + qualify(owner, pkg, name));
+        }
+        return new ProcedureSignature(qualify(owner, pkg, name), arguments, Instant.now());
+    }
+
+    private static String typeName(ResultSet resultSet) throws SQLException {
+        String typeName = resultSet.getString("type_name");
+        if (typeName == null) {
+            return null;
+        }
+        String subName = resultSet.getString("type_subname");
+        String qualified = resultSet.getString("type_owner") + "." + typeName;
+        // Types declared inside a package are OWNER.PACKAGE.TYPE
+        return subName == null ? qualified : qualified + "." + subName;
+    }
+
+    // Quoted so the call string matches the dictionary names exactly, whatever their case
+    private static String qualify(String owner, String pkg, String name) {
+        StringBuilder qualified = new StringBuilder();
+        if (owner != null) {
+            qualified.append('"').append(owner).append("\".");
+        }
+        if (pkg != null) {
+            qualified.append('"').append(pkg).append("\".");
+        }
+        return qualified.append('"').append(name).append('"').toString();
+    }
+
+    // Unquoted identifiers are stored upper-case in the dictionary; quoted ones as written
+    private static String dictionaryName(String identifier) {
+        if (identifier == null || identifier.trim().isEmpty()) {
+            return null;
+        }
+        String trimmed = identifier.trim();
+        String name = trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")
+                ? trimmed.substring(1, trimmed.length() - 1)
+                : trimmed.toUpperCase(Locale.ROOT);
+        if (name.indexOf('"') >= 0) {
+            throw new IllegalArgumentException("Invalid identifier: " + identifier);
+        }
+        return name;
+    }
+}
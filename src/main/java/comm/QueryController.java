@@ -1,21 +1,42 @@
 package com.example.controller;
 
+import com.example.service.ExecutionMode;
+import com.example.service.ProcedureSignature;
+import com.example.service.ProcedureSignatureCache;
 import com.example.service.QueryExecutionService;
+import com.example.service.QueryExecutor;
+import com.example.service.QueryMetrics;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Mono;
 
+import java.util.Collections;
 import java.util.Map;
 
 @RestController
 public class QueryController {
 
     private final QueryExecutionService queryExecutionService;
+    // The engine chosen by query.engine; queryExecutionService itself when it is jdbc
+    private final QueryExecutor queryExecutor;
+    private final RowStreamWriter rowStreamWriter;
+    private final QueryMetrics queryMetrics;
+    private final ProcedureSignatureCache procedureSignatureCache;
 
-    public QueryController(QueryExecutionService queryExecutionService) {
+    public QueryController(QueryExecutionService queryExecutionService, QueryExecutor queryExecutor,
+                           RowStreamWriter rowStreamWriter, QueryMetrics queryMetrics,
+                           ProcedureSignatureCache procedureSignatureCache) {
         this.queryExecutionService = queryExecutionService;
+        this.queryExecutor = queryExecutor;
+        this.rowStreamWriter = rowStreamWriter;
+        this.queryMetrics = queryMetrics;
+        this.procedureSignatureCache = procedureSignatureCache;
     }
 
     @GetMapping("/queries")
@@ -29,8 +50,8 @@ public class QueryController {
     }
 
     @PostMapping("/refreshQueries")
-    public void refreshQueryCache() {
-        queryExecutionService.refreshQueryCache();
+    public void refreshQueryCache(@RequestParam(defaultValue = "full") String mode) {
+        queryExecutionService.refreshQueryCache("delta".equalsIgnoreCase(mode));
     }
 
 
@@ -48,7 +69,17 @@ public class QueryController {
     public Flux<Map<String, Object>> executeSingleQuery(
             @RequestParam String templateId,
             @RequestParam(defaultValue = "50") int fetchSize) {
-        return queryExecutionService.executeSingleQuery(templateId, fetchSize);
+        return queryExecutor.executeSingleQuery(templateId, fetchSize);
+    }
+
+    @GetMapping(value = "/executeSingle", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<Void> streamSingleQuery(
+            @RequestParam String templateId,
+            @RequestParam(defaultValue = "50") int fetchSize,
+            @RequestHeader HttpHeaders headers,
+            ServerHttpResponse response) {
+        return rowStreamWriter.write(queryExecutor.executeSingleQuery(templateId, fetchSize),
+                RowStreamWriter.isEventStream(headers.getAccept()), response, queryMetrics.forTemplate(templateId));
     }
 
     @PostMapping("/executeMultiple")
@@ -122,14 +153,42 @@ public Mono<List<List<Map<String, Object>>>> executeMultipleQueries(
             throw new IllegalArgumentException("params must be a list of lists");
         }
 
+        // "parallel" fans the templates out over several connections; default is one connection
+        ExecutionMode mode = ExecutionMode.from((String) request.get("mode"));
+
         // Now you can use templateIds and params in your service call
-        return queryExecutionService.executeMultipleQueries(
+        return queryExecutor.executeMultipleQueries(
                 templateIds.toArray(new String[0]), 
-                params
+                params,
+                mode
         );
     }
 
 
+    @PostMapping("/executeBatch")
+    public Mono<int[]> executeBatch(@RequestBody Map<String, Object> request) {
+        Object templateIdsObj = request.get("templateIds");
+        Object paramsObj = request.get("params");
+        if (!(templateIdsObj instanceof List) || !(paramsObj instanceof List)) {
+            throw new IllegalArgumentException("templateIds and params must be lists");
+        }
+
+        String[] templateIds = ((List<?>) templateIdsObj).stream()
+                                                        .map(Object::toString)
+                                                        .toArray(String[]::new);
+        Object[][] params = ((List<?>) paramsObj).stream()
+                                                 .map(item -> {
+                                                     if (item instanceof List) {
+                                                         return ((List<?>) item).toArray(new Object[0]);
+                                                     }
+                                                     throw new IllegalArgumentException("params must be a list of lists");
+                                                 })
+                                                 .toArray(Object[][]::new);
+
+        // Consecutive rows for the same DML template are sent as JDBC batches
+        return queryExecutor.executeBatch(templateIds, params);
+    }
+
 	 @PostMapping("/executeProcedure")
     public Mono<Map<String, Object>> executeProcedure(@RequestParam String schemaName,
                                                       @RequestParam String catalogName,
@@ -143,6 +202,55 @@ public Mono<List<List<Map<String, Object>>>> executeMultipleQueries(
     public Mono<Map<String, Object>> executeProcedure(@RequestBody Map<String, Object> requestBody) {
         return queryExecutionService.executeProcedure(requestBody);
     }
+
+    /**
+     * Body: {"schemaName": ..., "packageName": ..., "procedureName": ..., "params": {"P_ID": 42, ...}}.
+     * Only named IN values are needed; types and OUT parameters come from the procedure's signature.
+     */
+    @SuppressWarnings("unchecked")
+    @PostMapping("/callProcedure")
+    public Mono<Map<String, Object>> callProcedure(@RequestBody Map<String, Object> requestBody) {
+        Object params = requestBody.getOrDefault("params", Collections.emptyMap());
+        if (!(params instanceof Map)) {
+            return Mono.error(new IllegalArgumentException("params must be an object of named values"));
+        }
+        return queryExecutor.callProcedure((String) requestBody.get("schemaName"),
+                (String) requestBody.get("packageName"), (String) requestBody.get("procedureName"),
+                (Map<String, Object>) params);
+    }
+
+    /**
+     * Same body as {@code /callProcedure}; REF CURSOR OUT parameters are streamed row by row
+     * as NDJSON or server-sent events instead of being collected first.
+     */
+    @SuppressWarnings("unchecked")
+    @PostMapping(value = "/callProcedure", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<Void> streamProcedure(@RequestBody Map<String, Object> requestBody,
+                                      @RequestParam(defaultValue = "50") int fetchSize,
+                                      @RequestHeader HttpHeaders headers,
+                                      ServerHttpResponse response) {
+        Object params = requestBody.getOrDefault("params", Collections.emptyMap());
+        if (!(params instanceof Map)) {
+            return Mono.error(new IllegalArgumentException("params must be an object of named values"));
+        }
+        String schemaName = (String) requestBody.get("schemaName");
+        String packageName = (String) requestBody.get("packageName");
+        String procedureName = (String) requestBody.get("procedureName");
+        return rowStreamWriter.write(queryExecutor.streamProcedure(schemaName, packageName, procedureName,
+                        (Map<String, Object>) params, fetchSize),
+                RowStreamWriter.isEventStream(headers.getAccept()), response,
+                () -> procedureMeters(schemaName, packageName, procedureName));
+    }
+
+    // Only a procedure the call resolved gets meters; a name that never resolved registers none
+    private QueryMetrics.PipelineMeters procedureMeters(String schemaName, String packageName, String procedureName) {
+        try {
+            ProcedureSignature signature = procedureSignatureCache.getIfFresh(schemaName, packageName, procedureName);
+            return signature == null ? null : queryMetrics.forProcedure(signature.getQualifiedName());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
     @GetMapping("/status")
     public Mono<String> getStatus() {
         return Mono.just("Service is running");
@@ -1,66 +1,208 @@
 package com.example.service;
 
-import oracle.jdbc.OraclePreparedStatement;
 import com.zaxxer.hikari.HikariDataSource;
+import oracle.jdbc.OracleConnection;
+import oracle.jdbc.OracleTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
 import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
-public class QueryExecutionService {
+public class QueryExecutionService implements QueryExecutor {
 
-    private final HikariDataSource hikariDataSource;
-    private final Map<String, String> queryCache = new HashMap<>();
- private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("dd/MM/yyyy HH.mm");
+    private static final Logger log = LoggerFactory.getLogger(QueryExecutionService.class);
+
+    private static final String TEMPLATE_COLUMNS =
+            "template_id, query_string, last_modified, is_deleted, read_only, cache_ttl_seconds, slow_threshold_ms, "
+                    + "batch_key";
 
-    public QueryExecutionService(HikariDataSource hikariDataSource) {
+    private final HikariDataSource hikariDataSource;
+    private final TemplateRegistry templateRegistry;
+    private final StatementCache statementCache;
+    private final ResultCache resultCache;
+    private final CacheInvalidator cacheInvalidator;
+    private final ProcedureSignatureCache procedureSignatureCache;
+    private final QueryMetrics queryMetrics;
+    private final SlowQueryLog slowQueryLog;
+    private final DatabaseSchedulers databaseSchedulers;
+    private final ReplicaRouter replicaRouter;
+    private final LookupCoalescer lookupCoalescer;
+    private final long deltaOverlapMillis;
+    private final int maxStreamFetchSize;
+    private final int maxParallelism;
+    private final int batchSize;
+
+    public QueryExecutionService(HikariDataSource hikariDataSource, TemplateRegistry templateRegistry,
+                                 StatementCache statementCache, ResultCache resultCache,
+                                 CacheInvalidator cacheInvalidator, ProcedureSignatureCache procedureSignatureCache,
+                                 QueryMetrics queryMetrics, SlowQueryLog slowQueryLog,
+                                 DatabaseSchedulers databaseSchedulers, ReplicaRouter replicaRouter,
+                                 LookupCoalescer lookupCoalescer,
+                                 @Value("${query.template.delta-overlap-ms:5000}") long deltaOverlapMillis,
+                                 @Value("${query.stream.max-fetch-size:1000}") int maxStreamFetchSize,
+                                 @Value("${query.multi.max-parallelism:4}") int maxParallelism,
+                                 @Value("${query.batch.size:500}") int batchSize) {
         this.hikariDataSource = hikariDataSource;
+        this.templateRegistry = templateRegistry;
+        this.statementCache = statementCache;
+        this.resultCache = resultCache;
+        this.cacheInvalidator = cacheInvalidator;
+        this.procedureSignatureCache = procedureSignatureCache;
+        this.queryMetrics = queryMetrics;
+        this.slowQueryLog = slowQueryLog;
+        this.databaseSchedulers = databaseSchedulers;
+        this.replicaRouter = replicaRouter;
+        this.lookupCoalescer = lookupCoalescer;
+        this.deltaOverlapMillis = deltaOverlapMillis;
+        this.maxStreamFetchSize = maxStreamFetchSize;
+        this.maxParallelism = maxParallelism;
+        this.batchSize = batchSize;
     }
 
     @PostConstruct
-    public void loadQueryCache() {
-        String loadQuery = "SELECT template_id, query_string FROM db_template";
+    public synchronized void loadQueryCache() {
+        // Soft-deleted rows are read too so the high-water mark covers them
+        String loadQuery = "SELECT " + TEMPLATE_COLUMNS + " FROM db_template";
+        Map<String, TemplateDefinition> queries = new HashMap<>();
+        Timestamp highWaterMark = null;
         try (Connection connection = hikariDataSource.getConnection();
              Statement statement = connection.createStatement();
              ResultSet resultSet = statement.executeQuery(loadQuery)) {
             
             while (resultSet.next()) {
                 String templateId = resultSet.getString("template_id");
-                String queryString = resultSet.getString("query_string");
-                queryCache.put(templateId, queryString);
+                Timestamp lastModified = resultSet.getTimestamp("last_modified");
+                if (lastModified != null && (highWaterMark == null || lastModified.after(highWaterMark))) {
+                    highWaterMark = lastModified;
+                }
+                if (!"Y".equals(resultSet.getString("is_deleted"))) {
+                    queries.put(templateId, readDefinition(resultSet));
+                }
             }
         } catch (SQLException e) {
-            e.printStackTrace(); // Implement proper logging
+            log.error("Template load failed, keeping the previous snapshot", e);
+            return;
+        }
+        TemplateSnapshot previous = templateRegistry.current();
+        // Unchanged templates keep their revision, so only the others lose cached statements and results
+        Set<String> touched = templateRegistry.publish(queries, highWaterMark).changedSince(previous);
+        if (!touched.isEmpty()) {
+            resultCache.invalidateTemplates(touched);
+            cacheInvalidator.templatesChanged();
         }
     }
 
+    /**
+     * Fetches only the db_template rows modified since the last load and merges them
+     * into the live snapshot. Falls back to a full reload when there is nothing to
+     * diff against or the delta query fails.
+     */
+    public synchronized void refreshQueryCacheDelta() {
+        Timestamp highWaterMark = templateRegistry.current().getHighWaterMark();
+        if (highWaterMark == null) {
+            loadQueryCache();
+            return;
+        }
+
+        // Re-read a small overlap window so rows committed late with an older timestamp are not missed
+        Timestamp since = new Timestamp(highWaterMark.getTime() - deltaOverlapMillis);
+        String deltaQuery = "SELECT " + TEMPLATE_COLUMNS + " FROM db_template WHERE last_modified > ?";
+        Map<String, TemplateDefinition> changed = new HashMap<>();
+        List<String> deleted = new ArrayList<>();
+        Timestamp newHighWaterMark = highWaterMark;
+
+        try (Connection connection = hikariDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(deltaQuery)) {
+
+            statement.setTimestamp(1, since);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    String templateId = resultSet.getString("template_id");
+                    Timestamp lastModified = resultSet.getTimestamp("last_modified");
+                    if (lastModified.after(newHighWaterMark)) {
+                        newHighWaterMark = lastModified;
+                    }
+                    if ("Y".equals(resultSet.getString("is_deleted"))) {
+                        deleted.add(templateId);
+                        changed.remove(templateId);
+                    } else {
+                        changed.put(templateId, readDefinition(resultSet));
+                        deleted.remove(templateId);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Delta template refresh failed, falling back to a full reload", e);
+            loadQueryCache();
+            return;
+        }
+        TemplateSnapshot previous = templateRegistry.current();
+        // Rows re-read by the overlap window come back as the same templates and change nothing
+        Set<String> touched = templateRegistry.apply(changed, deleted, newHighWaterMark).changedSince(previous);
+        if (!touched.isEmpty()) {
+            resultCache.invalidateTemplates(touched);
+            cacheInvalidator.templatesChanged();
+        }
+    }
+
+    private static TemplateDefinition readDefinition(ResultSet resultSet) throws SQLException {
+        int ttlSeconds = resultSet.getInt("cache_ttl_seconds");
+        Duration cacheTtl = resultSet.wasNull() ? null : Duration.ofSeconds(ttlSeconds);
+        long slowMillis = resultSet.getLong("slow_threshold_ms");
+        Duration slowThreshold = resultSet.wasNull() ? null : Duration.ofMillis(slowMillis);
+        return new TemplateDefinition(resultSet.getString("query_string"),
+                "Y".equals(resultSet.getString("read_only")), cacheTtl, slowThreshold, resultSet.getString("batch_key"));
+    }
+
     public Map<String, String> getAllQueries() {
-        return new HashMap<>(queryCache);
+        return templateRegistry.current().getQueries();
     }
 
     public String getSingleQuery(String templateId) {
-        return queryCache.get(templateId);
+        return templateRegistry.getQuery(templateId);
     }
 
     public void refreshQueryCache() {
         loadQueryCache();
     }
 
+    public void refreshQueryCache(boolean delta) {
+        if (delta) {
+            refreshQueryCacheDelta();
+        } else {
+            loadQueryCache();
+        }
+    }
+
     public Mono<String> executeSingleQuery(String templateId, Object... params) {
         return Mono.fromCallable(() -> {
-            String query = queryCache.get(templateId);
-            if (query == null) {
+            CompiledTemplate template = templateRegistry.getTemplate(templateId);
+            if (template == null) {
                 throw new IllegalArgumentException("Invalid template ID");
             }
+            template.checkParameterCount(params.length);
 
-            try (Connection connection = hikariDataSource.getConnection();
-                 OraclePreparedStatement statement = (OraclePreparedStatement) connection.prepareStatement(query)) {
+            try (Connection connection = replicaRouter.connectionFor(template);
+                 CachedStatement<PreparedStatement> cachedStatement = statementCache.prepare(connection, template)) {
 
+                PreparedStatement statement = cachedStatement.get();
                 for (int i = 0; i < params.length; i++) {
                     statement.setObject(i + 1, params[i]);
                 }
@@ -72,155 +214,453 @@ public class QueryExecutionService {
                 }
             }
             return null;
-        }).subscribeOn(Schedulers.boundedElastic());
+        }).subscribeOn(databaseSchedulers.query());
     }
 	
 	
 	public Mono<List<Map<String, Object>>> executeSingleQuery(String templateId, Object... params) {
+        return queryForRows(templateId, params);
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> queryForRows(String templateId, Object... params) {
+        CompiledTemplate template = templateRegistry.getTemplate(templateId);
+        // Read-only templates with a TTL are answered from the result cache; others go to the database,
+        // single-key lookups of batchable templates together with the lookups arriving alongside them
+        if (template != null && template.isBatchable() && params.length == 1) {
+            return resultCache.get(template, params,
+                    () -> lookupCoalescer.load(template, params[0], this::queryBatch)
+                            .onErrorResume(e -> !template.isBatchable(), e -> queryRows(templateId, params)),
+                    ResultCache::weighRows);
+        }
+        return resultCache.get(template, params, () -> queryRows(templateId, params), ResultCache::weighRows);
+    }
+
+    /**
+     * Runs the coalesced form of a batchable template for all {@code keys} at once and
+     * hands each key the rows whose key column matches it. Numeric keys are bound as
+     * SYS.ODCINUMBERLIST, text keys as SYS.ODCIVARCHAR2LIST; matching compares numbers
+     * whenever the keys or the key column are numeric, as Oracle's own comparison does,
+     * and exact text otherwise.
+     */
+    private Map<String, List<Map<String, Object>>> queryBatch(CompiledTemplate template, List<Object> keys)
+            throws SQLException {
+        QueryMetrics.PipelineMeters meters = queryMetrics.forTemplate(template.getTemplateId());
+        boolean numeric = true;
+        for (Object key : keys) {
+            numeric &= key instanceof Number;
+        }
+        Object[] elements = new Object[keys.size()];
+        for (int i = 0; i < elements.length; i++) {
+            Object key = keys.get(i);
+            elements[i] = numeric ? new BigDecimal(LookupCoalescer.keyOf(key)) : key.toString();
+        }
+
+        Map<String, List<Map<String, Object>>> rowsByValue = new HashMap<>();
+        boolean compareNumerically = numeric;
+        long rows = 0;
+        long mark = System.nanoTime();
+        try (Connection connection = replicaRouter.connectionFor(template)) {
+            mark = meters.recordAcquire(mark);
+            try (CachedStatement<PreparedStatement> cachedStatement = statementCache.prepareBatch(connection, template)) {
+                mark = meters.recordPrepare(mark);
+                PreparedStatement statement = cachedStatement.get();
+                statement.setArray(1, connection.unwrap(OracleConnection.class).createOracleArray(
+                        numeric ? "SYS.ODCINUMBERLIST" : "SYS.ODCIVARCHAR2LIST", elements));
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    mark = meters.recordExecute(mark);
+                    ResultSetMetaData metaData = resultSet.getMetaData();
+                    int keyColumn = columnIndex(metaData, template.getBatchKey());
+                    if (keyColumn == 0) {
+                        // Without the key no row can be matched to its lookup; stop coalescing
+                        // rather than answer every key with an empty list
+                        template.markBatchKeyMissing();
+                        log.warn("Template {}: batch_key {} is not a column of its result, lookups run uncoalesced",
+                                template.getTemplateId(), template.getBatchKey());
+                        throw new IllegalStateException("Template " + template.getTemplateId() + ": batch_key "
+                                + template.getBatchKey() + " is not a column of its result");
+                    }
+                    RowLayout layout = template.rowLayout(metaData);
+                    compareNumerically |= isNumericColumn(metaData.getColumnType(keyColumn));
+                    while (resultSet.next()) {
+                        CompactRow row = layout.readRow(resultSet);
+                        String value = matchKey(row.get(template.getBatchKey()), compareNumerically);
+                        if (value != null) {
+                            rowsByValue.computeIfAbsent(value, key -> new ArrayList<>()).add(row);
+                        }
+                        rows++;
+                    }
+                    meters.recordFetch(mark);
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            meters.recordError(e);
+            throw e;
+        }
+        meters.recordRows(rows);
+
+        Map<String, List<Map<String, Object>>> rowsByKey = new HashMap<>();
+        for (Object key : keys) {
+            String value = matchKey(key, compareNumerically);
+            List<Map<String, Object>> matched = value == null ? null : rowsByValue.get(value);
+            if (matched != null) {
+                rowsByKey.put(LookupCoalescer.keyOf(key), matched);
+            }
+        }
+        return rowsByKey;
+    }
+
+    private static String matchKey(Object value, boolean numerically) {
+        return numerically ? LookupCoalescer.numericKeyOf(value) : LookupCoalescer.keyOf(value);
+    }
+
+    // 1-based index of the named result column, or 0 when the result has no such column
+    private static int columnIndex(ResultSetMetaData metaData, String column) throws SQLException {
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (metaData.getColumnName(i).equals(column)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isNumericColumn(int sqlType) {
+        switch (sqlType) {
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.REAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private Mono<List<Map<String, Object>>> queryRows(String templateId, Object[] params) {
+    QueryMetrics.PipelineMeters meters = queryMetrics.forTemplate(templateId);
     return Mono.fromCallable(() -> {
-        String query = queryCache.get(templateId);
-        if (query == null) {
+        CompiledTemplate template = templateRegistry.getTemplate(templateId);
+        if (template == null) {
             throw new IllegalArgumentException("Invalid template ID");
         }
+        template.checkParameterCount(params.length);
 
         List<Map<String, Object>> results = new ArrayList<>();
 
-        try (Connection connection = hikariDataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query)) {
+        // Start, acquired, prepared, executed, fetched
+        long[] marks = new long[5];
+        long mark = marks[0] = System.nanoTime();
+        try (Connection connection = replicaRouter.connectionFor(template)) {
+            mark = marks[1] = meters.recordAcquire(mark);
+            try (CachedStatement<PreparedStatement> cachedStatement = statementCache.prepare(connection, template)) {
+                mark = marks[2] = meters.recordPrepare(mark);
 
-            // Ensure that each parameter is set in the PreparedStatement
-            for (int i = 0; i < params.length; i++) {
-                statement.setObject(i + 1, params[i]); // Parameters are 1-indexed in JDBC
-            }
+                PreparedStatement statement = cachedStatement.get();
+                // Ensure that each parameter is set in the PreparedStatement
+                for (int i = 0; i < params.length; i++) {
+                    statement.setObject(i + 1, params[i]); // Parameters are 1-indexed in JDBC
+                }
 
-            try (ResultSet resultSet = statement.executeQuery()) {
-                ResultSetMetaData metaData = resultSet.getMetaData();
-                int columnCount = metaData.getColumnCount();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    mark = marks[3] = meters.recordExecute(mark);
+                    RowLayout layout = template.rowLayout(resultSet.getMetaData());
 
-                while (resultSet.next()) {
-                    Map<String, Object> row = new HashMap<>();
-                    for (int j = 1; j <= columnCount; j++) {
-                        row.put(metaData.getColumnName(j), resultSet.getObject(j));
+                    while (resultSet.next()) {
+                        results.add(layout.readRow(resultSet));
                     }
-                    results.add(row);
+                    marks[4] = meters.recordFetch(mark);
                 }
             }
         }
 
+        meters.recordRows(results.size());
+        slowQueryLog.onTemplateCall(template, params, marks, results.size());
         return results;
-    }).subscribeOn(Schedulers.boundedElastic());
+    }).doOnError(meters::recordError).subscribeOn(databaseSchedulers.query());
 }
 	public Mono<List<Map<String, Object>>> executeSingleQuery(String templateId) {
         return Mono.fromCallable(() -> {
-            String query = queryCache.get(templateId);
-            if (query == null) {
+            CompiledTemplate template = templateRegistry.getTemplate(templateId);
+            if (template == null) {
                 throw new IllegalArgumentException("Invalid template ID");
             }
+            template.checkParameterCount(0);
 
             List<Map<String, Object>> results = new ArrayList<>();
 
-            try (Connection connection = hikariDataSource.getConnection();
-                 PreparedStatement statement = connection.prepareStatement(query);
-                 ResultSet resultSet = statement.executeQuery()) {
+            try (Connection connection = replicaRouter.connectionFor(template);
+                 CachedStatement<PreparedStatement> cachedStatement = statementCache.prepare(connection, template);
+                 ResultSet resultSet = cachedStatement.get().executeQuery()) {
 
-                ResultSetMetaData metaData = resultSet.getMetaData();
-                int columnCount = metaData.getColumnCount();
+                RowLayout layout = template.rowLayout(resultSet.getMetaData());
 
                 while (resultSet.next()) {
-                    Map<String, Object> row = new HashMap<>();
-                    for (int i = 1; i <= columnCount; i++) {
-                        row.put(metaData.getColumnName(i), resultSet.getObject(i));
-                    }
-                    results.add(row);
+                    results.add(layout.readRow(resultSet));
                 }
             }
 
             return results;
-        }).subscribeOn(Schedulers.boundedElastic());
+        }).subscribeOn(databaseSchedulers.query());
     }
 	
+	/**
+	 * Streams a template's rows on demand: the cursor only advances when downstream
+	 * requests more, and the statement and connection are released on complete,
+	 * error or cancel. A result-cacheable template is served from the result cache
+	 * only when its result is already there; a miss streams and is not cached.
+	 */
+    @Override
 	 public Flux<Map<String, Object>> executeSingleQuery(String templateId, int fetchSize) {
-        return Flux.create(sink -> {
-            String query = queryCache.get(templateId);
-            if (query == null) {
-                sink.error(new IllegalArgumentException("Invalid template ID"));
-                return;
+        return Flux.defer(() -> {
+            CompiledTemplate template = templateRegistry.getTemplate(templateId);
+            if (template == null) {
+                return Flux.error(new IllegalArgumentException("Invalid template ID"));
+            }
+            template.checkParameterCount(0);
+            // Loading into the cache would buffer the whole result, which is what streaming avoids
+            Mono<List<Map<String, Object>>> cached = resultCache.getIfPresent(template, new Object[0]);
+            if (cached != null) {
+                return cached.flatMapIterable(rows -> rows);
             }
 
-            try (Connection connection = hikariDataSource.getConnection();
-                 PreparedStatement statement = connection.prepareStatement(query)) {
+            QueryMetrics.PipelineMeters meters = queryMetrics.forTemplate(templateId);
+            AtomicLong demand = new AtomicLong();
+            // Fetch nanos and row count, recorded once the cursor closes
+            long[] fetched = new long[2];
+            // Start, acquired, prepared, executed; the end is taken when the cursor closes
+            long[] marks = new long[5];
+            return Flux.<Map<String, Object>, ResultSetCursor>generate(
+                    () -> openCursor(template, new Object[0], fetchSize, demand, meters, marks),
+                    (cursor, sink) -> {
+                        long started = System.nanoTime();
+                        try {
+                            CompactRow row = cursor.next();
+                            if (row != null) {
+                                fetched[1]++;
+                                sink.next(row);
+                            } else {
+                                sink.complete();
+                            }
+                        } catch (SQLException e) {
+                            sink.error(e);
+                        }
+                        fetched[0] += System.nanoTime() - started;
+                        return cursor;
+                    },
+                    cursor -> {
+                        cursor.close();
+                        meters.recordFetchNanos(fetched[0]);
+                        meters.recordRows(fetched[1]);
+                        // Only the time spent reading counts as fetch; waiting on a slow client does not
+                        marks[4] = marks[3] + fetched[0];
+                        slowQueryLog.onTemplateCall(template, new Object[0], marks, fetched[1]);
+                    })
+                    .doOnRequest(demand::set)
+                    .doOnError(meters::recordError);
+        }).subscribeOn(databaseSchedulers.query());
+    }
+
+    private ResultSetCursor openCursor(CompiledTemplate template, Object[] params, int fetchSize,
+                                       AtomicLong demand, QueryMetrics.PipelineMeters meters,
+                                       long[] marks) throws SQLException {
+        long mark = marks[0] = System.nanoTime();
+        Connection connection = replicaRouter.connectionFor(template);
+        mark = marks[1] = meters.recordAcquire(mark);
+        CachedStatement<PreparedStatement> cachedStatement = null;
+        try {
+            cachedStatement = statementCache.prepare(connection, template);
+            mark = marks[2] = meters.recordPrepare(mark);
+            PreparedStatement statement = cachedStatement.get();
+            // The statement goes back to the cache, so the caller's fetch size must not stick to it
+            int defaultFetchSize = statement.getFetchSize();
+            statement.setFetchSize(fetchSize);
+            ResultSet resultSet;
+            try {
+                for (int i = 0; i < params.length; i++) {
+                    statement.setObject(i + 1, params[i]);
+                }
+                resultSet = statement.executeQuery();
+            } finally {
+                statement.setFetchSize(defaultFetchSize);
+            }
+            resultSet.setFetchSize(fetchSize);
+            marks[3] = meters.recordExecute(mark);
+            return new ResultSetCursor(resultSet, template.rowLayout(resultSet.getMetaData()),
+                    fetchSize, maxStreamFetchSize, demand, cachedStatement, connection);
+        } catch (SQLException | RuntimeException e) {
+            if (cachedStatement != null) {
+                cachedStatement.close();
+            }
+            connection.close();
+            throw e;
+        }
+    }
 
-                statement.setFetchSize(fetchSize); // Set the fetch size
+    public Mono<Void> executeMultipleQueries(String[] templateIds, Object[][] params) {
+        return executeBatch(templateIds, params).then();
+    }
 
-                try (ResultSet resultSet = statement.executeQuery()) {
-                    ResultSetMetaData metaData = resultSet.getMetaData();
-                    int columnCount = metaData.getColumnCount();
+    /**
+     * Executes every (template, params) pair on one connection and returns the update
+     * count of each, in input order. Consecutive calls to the same DML template are sent
+     * with addBatch/executeBatch in chunks of {@code batchSize}, one transaction per chunk.
+     */
+    @Override
+    public Mono<int[]> executeBatch(String[] templateIds, Object[][] params) {
+        return Mono.fromCallable(() -> {
+            if (templateIds.length != params.length) {
+                throw new IllegalArgumentException("templateIds and params must have the same length");
+            }
+            int[] updateCounts = new int[templateIds.length];
 
-                    while (resultSet.next()) {
-                        Map<String, Object> row = new HashMap<>();
-                        for (int i = 1; i <= columnCount; i++) {
-                            row.put(metaData.getColumnName(i), resultSet.getObject(i));
+            try (Connection connection = hikariDataSource.getConnection()) {
+                connection.setAutoCommit(false);
+                try {
+                    int i = 0;
+                    while (i < templateIds.length) {
+                        CompiledTemplate template = templateRegistry.getTemplate(templateIds[i]);
+                        if (template == null) {
+                            throw new IllegalArgumentException("Invalid template ID: " + templateIds[i]);
                         }
-                        sink.next(row);
+                        int runEnd = i + 1;
+                        while (runEnd < templateIds.length && templateIds[runEnd].equals(templateIds[i])) {
+                            runEnd++;
+                        }
+                        if (template.getKind() == StatementKind.DML && runEnd - i > 1) {
+                            executeDmlRun(connection, template, params, i, runEnd, updateCounts);
+                        } else {
+                            for (int j = i; j < runEnd; j++) {
+                                updateCounts[j] = executeOne(connection, template, params[j]);
+                            }
+                        }
+                        i = runEnd;
                     }
-                    sink.complete();
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
                 }
             } catch (SQLException e) {
-                sink.error(e);
+                log.error("Batch of {} template calls failed and was rolled back", templateIds.length, e);
+                throw new RuntimeException("Database batch execution failed", e);
             }
-        }).subscribeOn(Schedulers.boundedElastic());
-    }
 
-    public Mono<Void> executeMultipleQueries(String[] templateIds, Object[][] params) {
-        return Mono.fromRunnable(() -> {
-            try (Connection connection = hikariDataSource.getConnection()) {
-                for (int i = 0; i < templateIds.length; i++) {
-                    String query = queryCache.get(templateIds[i]);
-                    if (query == null) {
-                        throw new IllegalArgumentException("Invalid template ID");
-                    }
+            return updateCounts;
+        }).subscribeOn(databaseSchedulers.bulk());
+    }
 
-                    try (OraclePreparedStatement statement = (OraclePreparedStatement) connection.prepareStatement(query)) {
-                        for (int j = 0; j < params[i].length; j++) {
-                            statement.setObject(j + 1, params[i][j]);
+    private void executeDmlRun(Connection connection, CompiledTemplate template, Object[][] params,
+                               int from, int to, int[] updateCounts) throws SQLException {
+        QueryMetrics.PipelineMeters meters = queryMetrics.forTemplate(template.getTemplateId());
+        long mark = System.nanoTime();
+        // Every row is checked before anything is bound, so a bad row cannot leave half a batch queued
+        for (int j = from; j < to; j++) {
+            template.checkParameterCount(params[j].length);
+        }
+        try (CachedStatement<PreparedStatement> cachedStatement = statementCache.prepare(connection, template)) {
+            mark = meters.recordPrepare(mark);
+            PreparedStatement statement = cachedStatement.get();
+            try {
+                for (int chunkStart = from; chunkStart < to; chunkStart += batchSize) {
+                    int chunkEnd = Math.min(to, chunkStart + batchSize);
+                    for (int j = chunkStart; j < chunkEnd; j++) {
+                        for (int k = 0; k < params[j].length; k++) {
+                            statement.setObject(k + 1, params[j][k]);
                         }
-                        statement.execute();
+                        statement.addBatch();
                     }
+                    int[] chunkCounts = statement.executeBatch();
+                    connection.commit();
+                    mark = meters.recordExecute(mark);
+                    System.arraycopy(chunkCounts, 0, updateCounts, chunkStart, chunkCounts.length);
                 }
-            } catch (SQLException e) {
-                e.printStackTrace(); // Implement proper logging
+            } finally {
+                // The statement goes back to the cache; a pending batch would run with the next caller's
+                statement.clearBatch();
             }
-        }).subscribeOn(Schedulers.boundedElastic()).then();
+        }
+    }
+
+    private int executeOne(Connection connection, CompiledTemplate template, Object[] params) throws SQLException {
+        template.checkParameterCount(params.length);
+        QueryMetrics.PipelineMeters meters = queryMetrics.forTemplate(template.getTemplateId());
+        long mark = System.nanoTime();
+        try (CachedStatement<PreparedStatement> cachedStatement = statementCache.prepare(connection, template)) {
+            mark = meters.recordPrepare(mark);
+            PreparedStatement statement = cachedStatement.get();
+            for (int k = 0; k < params.length; k++) {
+                statement.setObject(k + 1, params[k]);
+            }
+            statement.execute();
+            int updateCount = statement.getUpdateCount();
+            connection.commit();
+            meters.recordExecute(mark);
+            return updateCount;
+        }
     }
 	
 	public Mono<List<List<Map<String, Object>>>> executeMultipleQueries(String[] templateIds, Object[][] params) {
+        return executeMultipleQueries(templateIds, params, ExecutionMode.SEQUENTIAL);
+    }
+
+    /**
+     * Runs several templates and returns their results in input order. SEQUENTIAL uses one
+     * connection for all of them; PARALLEL borrows up to {@code maxParallelism} connections
+     * (never more than the pool holds) and runs the templates concurrently.
+     */
+    @Override
+    public Mono<List<List<Map<String, Object>>>> executeMultipleQueries(String[] templateIds, Object[][] params,
+                                                                        ExecutionMode mode) {
+        if (templateIds.length != params.length) {
+            return Mono.error(new IllegalArgumentException("templateIds and params must have the same length"));
+        }
+        if (mode != ExecutionMode.PARALLEL || templateIds.length < 2) {
+            return queryAllOnOneConnection(templateIds, params);
+        }
+        int concurrency = Math.max(1, Math.min(maxParallelism, hikariDataSource.getMaximumPoolSize()));
+        return Flux.range(0, templateIds.length)
+                .flatMapSequential(i -> queryRows(templateIds[i], params[i]), concurrency)
+                .collectList();
+    }
+
+    private Mono<List<List<Map<String, Object>>>> queryAllOnOneConnection(String[] templateIds, Object[][] params) {
         return Mono.fromCallable(() -> {
             List<List<Map<String, Object>>> allResults = new ArrayList<>();
+            List<CompiledTemplate> templates = new ArrayList<>(templateIds.length);
+            for (String templateId : templateIds) {
+                CompiledTemplate template = templateRegistry.getTemplate(templateId);
+                if (template == null) {
+                    throw new IllegalArgumentException("Invalid template ID: " + templateId);
+                }
+                templates.add(template);
+            }
 
-            try (Connection connection = hikariDataSource.getConnection()) {
+            // One session for all of them: a replica only if every template is a read-only query
+            try (Connection connection = replicaRouter.connectionFor(templates)) {
                 for (int i = 0; i < templateIds.length; i++) {
-                    String query = queryCache.get(templateIds[i]);
-                    if (query == null) {
-                        throw new IllegalArgumentException("Invalid template ID: " + templateIds[i]);
-                    }
+                    CompiledTemplate template = templates.get(i);
+                    template.checkParameterCount(params[i].length);
 
                     List<Map<String, Object>> resultSetList = new ArrayList<>();
 
-                    try (PreparedStatement statement = connection.prepareStatement(query)) {
+                    try (CachedStatement<PreparedStatement> cachedStatement = statementCache.prepare(connection, template)) {
+                        PreparedStatement statement = cachedStatement.get();
                         for (int j = 0; j < params[i].length; j++) {
                             statement.setObject(j + 1, params[i][j]); // Parameters are 1-indexed
                         }
 
                         try (ResultSet resultSet = statement.executeQuery()) {
-                            ResultSetMetaData metaData = resultSet.getMetaData();
-                            int columnCount = metaData.getColumnCount();
+                            RowLayout layout = template.rowLayout(resultSet.getMetaData());
 
                             while (resultSet.next()) {
-                                Map<String, Object> row = new HashMap<>();
-                                for (int k = 1; k <= columnCount; k++) {
-                                    row.put(metaData.getColumnName(k), resultSet.getObject(k));
-                                }
-                                resultSetList.add(row);
+                                resultSetList.add(layout.readRow(resultSet));
                             }
                         }
                     }
@@ -232,33 +672,328 @@ public class QueryExecutionService {
             }
 
             return allResults;
-        }).subscribeOn(Schedulers.boundedElastic());
+        }).subscribeOn(databaseSchedulers.query());
     }
-	
-	private boolean isInteger(String value) {
+
+    /**
+     * Conversion plan for a positional procedure call: the declared argument types from
+     * the cached signature, indexed by argument position, so text IN values are parsed as
+     * their declared type instead of having it guessed from the text on every call.
+     * Procedures the cache cannot resolve (overloads, synonyms, names missing from
+     * ALL_ARGUMENTS) still run, with every type inferred from the text as before.
+     * <p>
+     * Call it before borrowing the connection for the call: a signature miss borrows one of
+     * its own, and holding two per request can exhaust the pool under load.
+     */
+    private ConversionPlan conversionPlan(String schemaName, String packageName, String procedureName, int inParams) {
         try {
-            Integer.parseInt(value);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
+            return procedureSignatureCache.get(schemaName, packageName, procedureName).getConversionPlan();
+        } catch (IllegalArgumentException | SQLException e) {
+            log.debug("No signature for procedure {}.{}.{}, inferring IN types from the values",
+                    schemaName, packageName, procedureName, e);
+            return ConversionPlan.inferred(inParams);
         }
     }
 
-    private boolean isDouble(String value) {
+    /**
+     * Calls a stored procedure with named IN values. Positions, directions and JDBC types
+     * come from the cached signature, so callers pass neither OUT types nor positions;
+     * IN parameters left out are bound as NULL. Returns every OUT value by argument name.
+     */
+    @Override
+    public Mono<Map<String, Object>> callProcedure(String schemaName, String packageName, String procedureName,
+                                                   Map<String, Object> inParams) {
+        return Mono.fromCallable(() -> procedureSignatureCache.get(schemaName, packageName, procedureName))
+                // Meters are tagged with the resolved name only, so unknown names never register any
+                .flatMap(signature -> callProcedure(signature, inParams,
+                        queryMetrics.forProcedure(signature.getQualifiedName())))
+                .subscribeOn(databaseSchedulers.procedure());
+    }
+
+    private Mono<Map<String, Object>> callProcedure(ProcedureSignature signature, Map<String, Object> inParams,
+                                                    QueryMetrics.PipelineMeters meters) {
+        return Mono.fromCallable(() -> {
+            Map<String, Object> values = namedInValues(signature, inParams);
+
+            long[] marks = new long[5];
+            long mark = marks[0] = System.nanoTime();
+            try (Connection connection = hikariDataSource.getConnection()) {
+                mark = marks[1] = meters.recordAcquire(mark);
+                try (CachedStatement<CallableStatement> cachedCall = statementCache.prepareCall(connection, signature.getCallSql())) {
+                    mark = marks[2] = meters.recordPrepare(mark);
+
+                    CallableStatement callableStatement = cachedCall.get();
+                    bindAndExecute(callableStatement, signature, values);
+                    marks[3] = meters.recordExecute(mark);
+
+                    Map<String, Object> resultMap = new LinkedHashMap<>();
+                    for (ProcedureArgument argument : signature.getArguments()) {
+                        if (argument.isOut()) {
+                            resultMap.put(argument.getName(), readOutArgument(callableStatement, argument));
+                        }
+                    }
+                    marks[4] = System.nanoTime();
+                    slowQueryLog.onProcedureCall(signature.getQualifiedName(), values.values().toArray(), marks, 0);
+                    return resultMap;
+                }
+            } catch (SQLException e) {
+                e.printStackTrace(); // Implement proper logging
+                throw new RuntimeException("Error executing procedure", e);
+            }
+        }).doOnError(meters::recordError);
+    }
+
+    /**
+     * Calls a stored procedure like {@link #callProcedure} but streams its REF CURSOR OUT
+     * parameters instead of reading them up front. The result is a sequence of envelopes:
+     * <pre>
+     * {"type": "out", "values": {...}}                 scalar OUT values, emitted first
+     * {"type": "row", "cursor": "P_RC", "row": {...}}  one per cursor row, cursor by cursor
+     * {"type": "end", "cursor": "P_RC", "rows": n}     after the last row of each cursor
+     * </pre>
+     * Rows are fetched only as downstream requests them. The connection stays borrowed
+     * until the last cursor is drained or the subscriber cancels, whichever comes first.
+     */
+    @Override
+    public Flux<Map<String, Object>> streamProcedure(String schemaName, String packageName, String procedureName,
+                                                     Map<String, Object> inParams, int fetchSize) {
+        return Mono.fromCallable(() -> procedureSignatureCache.get(schemaName, packageName, procedureName))
+                .flatMapMany(signature -> {
+                    QueryMetrics.PipelineMeters meters = queryMetrics.forProcedure(signature.getQualifiedName());
+                    return Flux.using(
+                            () -> openProcedureCall(signature, inParams, fetchSize, meters),
+                            call -> {
+                                Map<String, Object> outEnvelope = new LinkedHashMap<>();
+                                outEnvelope.put("type", "out");
+                                outEnvelope.put("values", call.scalars);
+                                Flux<Map<String, Object>> cursors = Flux.fromIterable(call.cursors.entrySet())
+                                        .concatMap(cursor -> streamCursor(cursor.getKey(), cursor.getValue(), fetchSize));
+                                return Flux.concat(Flux.just(outEnvelope), cursors);
+                            },
+                            OpenProcedureCall::close)
+                            .doOnError(meters::recordError);
+                })
+                .subscribeOn(databaseSchedulers.procedure());
+    }
+
+    private OpenProcedureCall openProcedureCall(ProcedureSignature signature, Map<String, Object> inParams,
+                                                int fetchSize, QueryMetrics.PipelineMeters meters) throws SQLException {
+        Map<String, Object> values = namedInValues(signature, inParams);
+        long mark = System.nanoTime();
+        OpenProcedureCall call = new OpenProcedureCall(hikariDataSource.getConnection());
+        mark = meters.recordAcquire(mark);
         try {
-            Double.parseDouble(value);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
+            call.statement = statementCache.prepareCall(call.connection, signature.getCallSql());
+            mark = meters.recordPrepare(mark);
+            CallableStatement callableStatement = call.statement.get();
+            bindAndExecute(callableStatement, signature, values);
+            meters.recordExecute(mark);
+            for (ProcedureArgument argument : signature.getArguments()) {
+                if (argument.isCursor()) {
+                    ResultSet cursor = (ResultSet) callableStatement.getObject(argument.getPosition());
+                    if (cursor != null) {
+                        cursor.setFetchSize(Math.max(1, fetchSize));
+                        call.cursors.put(argument.getName(), cursor);
+                    }
+                } else if (argument.isOut()) {
+                    call.scalars.put(argument.getName(), readOutArgument(callableStatement, argument));
+                }
+            }
+            return call;
+        } catch (SQLException | RuntimeException e) {
+            call.close();
+            throw e;
         }
     }
 
+    private Flux<Map<String, Object>> streamCursor(String name, ResultSet resultSet, int fetchSize) {
+        AtomicLong demand = new AtomicLong();
+        AtomicLong rows = new AtomicLong();
+        Flux<Map<String, Object>> rowEnvelopes = Flux.<Map<String, Object>, ResultSetCursor>generate(
+                () -> new ResultSetCursor(resultSet, RowLayout.of(resultSet.getMetaData()), fetchSize,
+                        maxStreamFetchSize, demand),
+                (cursor, sink) -> {
+                    try {
+                        CompactRow row = cursor.next();
+                        if (row != null) {
+                            rows.incrementAndGet();
+                            Map<String, Object> envelope = new LinkedHashMap<>();
+                            envelope.put("type", "row");
+                            envelope.put("cursor", name);
+                            envelope.put("row", row);
+                            sink.next(envelope);
+                        } else {
+                            sink.complete();
+                        }
+                    } catch (SQLException e) {
+                        sink.error(e);
+                    }
+                    return cursor;
+                },
+                ResultSetCursor::close)
+                .doOnRequest(demand::set);
+        return rowEnvelopes.concatWith(Mono.fromSupplier(() -> {
+            Map<String, Object> envelope = new LinkedHashMap<>();
+            envelope.put("type", "end");
+            envelope.put("cursor", name);
+            envelope.put("rows", rows.get());
+            return envelope;
+        }));
+    }
+
+    /**
+     * Connection, statement and still-unread cursors of a procedure call being streamed.
+     */
+    private static final class OpenProcedureCall {
+        private final Connection connection;
+        private CachedStatement<CallableStatement> statement;
+        private final Map<String, Object> scalars = new LinkedHashMap<>();
+        private final Map<String, ResultSet> cursors = new LinkedHashMap<>();
+
+        OpenProcedureCall(Connection connection) {
+            this.connection = connection;
+        }
+
+        void close() {
+            for (ResultSet cursor : cursors.values()) {
+                closeQuietly(cursor);
+            }
+            if (statement != null) {
+                closeQuietly(statement);
+            }
+            closeQuietly(connection);
+        }
+
+        private static void closeQuietly(AutoCloseable resource) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                log.warn("Failed to close {}", resource, e);
+            }
+        }
+    }
+
+    static Map<String, Object> namedInValues(ProcedureSignature signature, Map<String, Object> inParams) {
+        Map<String, Object> values = new HashMap<>();
+        for (Map.Entry<String, Object> entry : inParams.entrySet()) {
+            ProcedureArgument argument = signature.getArgument(entry.getKey());
+            if (argument == null || !argument.isIn()) {
+                throw new IllegalArgumentException("Procedure " + signature.getQualifiedName()
+                        + " has no IN parameter " + entry.getKey());
+            }
+            values.put(argument.getName(), entry.getValue());
+        }
+        return values;
+    }
+
+    private void bindAndExecute(CallableStatement callableStatement, ProcedureSignature signature,
+                                Map<String, Object> values) throws SQLException {
+        ConversionPlan plan = signature.getConversionPlan();
+        for (ProcedureArgument argument : signature.getArguments()) {
+            int position = argument.getPosition();
+            if (argument.isIn()) {
+                bindArgument(callableStatement, argument, plan.convert(position - 1, values.get(argument.getName())));
+            }
+            if (argument.isOut()) {
+                if (argument.getTypeName() != null) {
+                    callableStatement.registerOutParameter(position, argument.getSqlType(), argument.getTypeName());
+                } else {
+                    callableStatement.registerOutParameter(position, argument.getSqlType());
+                }
+            }
+        }
+        callableStatement.execute();
+    }
+
+    private void bindArgument(CallableStatement callableStatement, ProcedureArgument argument, Object value)
+            throws SQLException {
+        int position = argument.getPosition();
+        if (value == null) {
+            if (argument.getTypeName() != null) {
+                callableStatement.setNull(position, argument.getSqlType(), argument.getTypeName());
+            } else {
+                callableStatement.setNull(position, argument.getSqlType());
+            }
+        } else if (argument.isCollection()) {
+            callableStatement.setArray(position, toOracleArray(callableStatement.getConnection(), argument, value));
+        } else if (argument.getSqlType() == Types.OTHER) {
+            callableStatement.setObject(position, value);
+        } else {
+            callableStatement.setObject(position, value, argument.getSqlType());
+        }
+    }
+
+    /**
+     * Builds the collection value of a TABLE OF / VARRAY argument from a JSON array, so a
+     * single call can hand thousands of records to PL/SQL in one round trip. The element
+     * type comes from the signature, text elements are converted like scalar IN values.
+     */
+    private Array toOracleArray(Connection connection, ProcedureArgument argument, Object value) throws SQLException {
+        Object[] elements = collectionElements(argument, value);
+        return connection.unwrap(OracleConnection.class).createOracleArray(argument.getTypeName(), elements);
+    }
+
+    static Object[] collectionElements(ProcedureArgument argument, Object value) {
+        Object[] elements;
+        if (value instanceof Collection) {
+            elements = ((Collection<?>) value).toArray();
+        } else if (value instanceof Object[]) {
+            elements = ((Object[]) value).clone();
+        } else {
+            throw new IllegalArgumentException("Parameter " + argument.getName() + " expects an array of values");
+        }
+        ParameterType elementType = ParameterType.forTypeName(argument.getElementType());
+        for (int i = 0; i < elements.length; i++) {
+            if (elements[i] instanceof String) {
+                Object converted = elementType.parse((String) elements[i]);
+                if (converted == null) {
+                    throw new IllegalArgumentException("Invalid " + elementType + " value at index " + i
+                            + " of parameter " + argument.getName() + ": " + elements[i]);
+                }
+                elements[i] = converted;
+            }
+        }
+        return elements;
+    }
+
+    // Reads a whole REF CURSOR into compact rows; large cursors belong on streamProcedure
+    private List<Map<String, Object>> readCursor(ResultSet cursor) throws SQLException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        if (cursor == null) {
+            return rows;
+        }
+        try (ResultSet resultSet = cursor) {
+            RowLayout layout = RowLayout.of(resultSet.getMetaData());
+            while (resultSet.next()) {
+                rows.add(layout.readRow(resultSet));
+            }
+        }
+        return rows;
+    }
+
+    // Turns driver objects into values the JSON encoder can handle
+    private Object readOutArgument(CallableStatement callableStatement, ProcedureArgument argument) throws SQLException {
+        int position = argument.getPosition();
+        if (argument.isCursor()) {
+            return readCursor((ResultSet) callableStatement.getObject(position));
+        }
+        Object value = callableStatement.getObject(position);
+        if (value instanceof Array) {
+            return Arrays.asList((Object[]) ((Array) value).getArray());
+        }
+        if (value instanceof Struct) {
+            return Arrays.asList(((Struct) value).getAttributes());
+        }
+        return value;
+    }
+
 
     public Mono<String> executeProcedure(String procedureName, Object... params) {
         return Mono.fromCallable(() -> {
             try (Connection connection = hikariDataSource.getConnection();
-                 CallableStatement callableStatement = connection.prepareCall("{call " + procedureName + "(?, ?)}")) {
+                 CachedStatement<CallableStatement> cachedCall = statementCache.prepareCall(connection, "{call " + procedureName + "(?, ?)}")) {
 
+                CallableStatement callableStatement = cachedCall.get();
                 for (int i = 0; i < params.length; i++) {
                     callableStatement.setObject(i + 1, params[i]);
                 }
@@ -268,7 +1003,7 @@ public class QueryExecutionService {
 
                 return callableStatement.getString(1);
             }
-        }).subscribeOn(Schedulers.boundedElastic());
+        }).subscribeOn(databaseSchedulers.procedure());
     }
 	
 	   private Map<Integer, String> castToIntegerStringMap(Object obj) {
@@ -288,23 +1023,17 @@ public class QueryExecutionService {
         }
     }
 	
-	 private static boolean isDate(String value) {
-        try {
-            DATE_FORMAT.parse(value);
-            return true;
-        } catch (ParseException e) {
-            return false;
-        }
-    }
-	
 	   public Mono<Map<String, Object>> executeProcedure(String schemaName, String catalogName, String procedureName,
                                                       Map<Integer, Object> inParams, Map<Integer, Integer> outParams) {
         return Mono.fromCallable(() -> {
             String callStatement = buildProcedureCall(schemaName, catalogName, procedureName, inParams.size(), outParams.size());
 
+            ConversionPlan plan = conversionPlan(schemaName, catalogName, procedureName, inParams.size());
+
             try (Connection connection = dataSource.getConnection();
-                 CallableStatement callableStatement = connection.prepareCall(callStatement)) {
+                 CachedStatement<CallableStatement> cachedCall = statementCache.prepareCall(connection, callStatement)) {
 
+                CallableStatement callableStatement = cachedCall.get();
 
  // Attempt to safely cast inParams and outParams
             Map<Integer, String> inParams = castToIntegerStringMap(requestBody.get("inParams"));
@@ -313,22 +1042,7 @@ public class QueryExecutionService {
                // Set IN parameters with appropriate type conversion
                 for (Map.Entry<Integer, String> entry : inParams.entrySet()) {
                     Integer paramIndex = entry.getKey();
-                    String paramValue = entry.getValue();
-// Attempt to determine the appropriate type for the value
-            if (isInteger(value)) {
-                convertedInParams.put(key, Integer.parseInt(value));
-            } else if (isDouble(value)) {
-                convertedInParams.put(key, Double.parseDouble(value));
-            } else if (isDate(value)) {
-                try {
-                    Date dateValue = DATE_FORMAT.parse(value);
-                    convertedInParams.put(key, new java.sql.Timestamp(dateValue.getTime()));
-                } catch (ParseException e) {
-                    throw new IllegalArgumentException("Invalid date format for key " + key + ": " + value);
-                }
-            } else {
-                convertedInParams.put(key, value);  // Default to treating it as a String
-            }
+                    callableStatement.setObject(paramIndex, plan.convert(paramIndex - 1, entry.getValue()));
                 }
 
                 for (Map.Entry<Integer, Integer> entry : outParams.entrySet()) {
@@ -347,7 +1061,8 @@ public class QueryExecutionService {
                 for (Map.Entry<Integer, Integer> entry : outParams.entrySet()) {
                     Object result;
                     if (entry.getValue() == OracleTypes.CURSOR) {
-                        result = callableStatement.getObject(entry.getKey());
+                        // A raw ResultSet is neither serializable nor usable once the connection closes
+                        result = readCursor((ResultSet) callableStatement.getObject(entry.getKey()));
                     } else {
                         result = callableStatement.getObject(entry.getKey());
                     }
@@ -360,7 +1075,7 @@ public class QueryExecutionService {
                 e.printStackTrace();
                 throw new RuntimeException("Error executing procedure", e);
             }
-        }).subscribeOn(Schedulers.boundedElastic());
+        }).subscribeOn(databaseSchedulers.procedure());
     }
 
     private String buildProcedureCall(String schemaName, String catalogName, String procedureName, int inParamsCount, int outParamsCount) {
@@ -406,14 +1121,16 @@ public class QueryExecutionService {
 
             String callStatement = buildProcedureCall(schemaName, catalogName, procedureName, inParams.size(), outParams.size());
 
+            ConversionPlan plan = conversionPlan(schemaName, catalogName, procedureName, inParams.size());
+
             try (Connection connection = dataSource.getConnection();
-                 CallableStatement callableStatement = connection.prepareCall(callStatement)) {
+                 CachedStatement<CallableStatement> cachedCall = statementCache.prepareCall(connection, callStatement)) {
 
+                CallableStatement callableStatement = cachedCall.get();
                 // Set IN parameters
                 int index = 1;
                 for (Map.Entry<String, String> entry : inParams.entrySet()) {
-                    String value = entry.getValue();
-                    callableStatement.setObject(index, convertToJDBCType(value));
+                    callableStatement.setObject(index, plan.convert(index - 1, entry.getValue()));
                     index++;
                 }
 
@@ -442,7 +1159,7 @@ public class QueryExecutionService {
                 e.printStackTrace(); // Replace with proper logging
                 throw new RuntimeException("Error executing procedure", e);
             }
-        }).subscribeOn(Schedulers.boundedElastic());
+        }).subscribeOn(databaseSchedulers.procedure());
     }
 
     private String buildProcedureCall(String schemaName, String catalogName, String procedureName, int inParamsCount, int outParamsCount) {
@@ -471,17 +1188,6 @@ public class QueryExecutionService {
         return call.toString();
     }
 
-    private Object convertToJDBCType(String value) {
-        // Simple conversion logic based on the value format
-        if (value.matches("-?\\d+")) {
-            return Integer.parseInt(value);  // Convert to Integer
-        } else if (value.matches("-?\\d+(\\.\\d+)?")) {
-            return Double.parseDouble(value);  // Convert to Double
-        } else {
-            return value;  // Treat as String
-        }
-    }
-
     private int convertSQLType(String sqlType) {
         switch (sqlType.toUpperCase()) {
             case "VARCHAR":
@@ -516,8 +1222,9 @@ public class QueryExecutionService {
             String callStatement = buildProcedureCall(schemaName, catalogName, procedureName, inParams.size(), outParams.size());
 
             try (Connection connection = dataSource.getConnection();
-                 CallableStatement callableStatement = connection.prepareCall(callStatement)) {
+                 CachedStatement<CallableStatement> cachedCall = statementCache.prepareCall(connection, callStatement)) {
 
+                CallableStatement callableStatement = cachedCall.get();
                 // Set IN parameters
                 int index = 1;
                 for (Map.Entry<String, String> entry : inParams.entrySet()) {
@@ -549,7 +1256,7 @@ public class QueryExecutionService {
                 e.printStackTrace(); // Replace with proper logging
                 throw new RuntimeException("Error executing procedure", e);
             }
-        }).subscribeOn(Schedulers.boundedElastic());
+        }).subscribeOn(databaseSchedulers.procedure());
     }
 
     private String buildProcedureCall(String schemaName, String catalogName, String procedureName, int inParamsCount, int outParamsCount) {
@@ -590,13 +1297,16 @@ public class QueryExecutionService {
 
             String callStatement = buildProcedureCall(schemaName, catalogName, procedureName, inParams.size(), outParams.size());
 
+            ConversionPlan plan = conversionPlan(schemaName, catalogName, procedureName, inParams.size());
+
             try (Connection connection = dataSource.getConnection();
-                 CallableStatement callableStatement = connection.prepareCall(callStatement)) {
+                 CachedStatement<CallableStatement> cachedCall = statementCache.prepareCall(connection, callStatement)) {
 
+                CallableStatement callableStatement = cachedCall.get();
                 // Set IN parameters
                 int index = 1;
                 for (Map.Entry<String, String> entry : inParams.entrySet()) {
-                   callableStatement.setObject(index, convertToObject(entry.getValue()));
+                    callableStatement.setObject(index, plan.convert(index - 1, entry.getValue()));
                     index++;
                 }
 
@@ -624,16 +1334,6 @@ public class QueryExecutionService {
                 e.printStackTrace(); // Replace with proper logging
                 throw new RuntimeException("Error executing procedure", e);
             }
-        }).subscribeOn(Schedulers.boundedElastic());
-    }
-	
-	private Object convertToObject(String value) {
-        // Simple type conversion logic; this can be expanded
-        try {
-            return Integer.parseInt(value); // Attempt to convert to Integer
-        } catch (NumberFormatException e) {
-            // If it's not an integer, return as a String
-            return value;
-        }
+        }).subscribeOn(databaseSchedulers.procedure());
     }
 }
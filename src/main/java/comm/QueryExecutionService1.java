@@ -1,10 +1,10 @@
 package com.example.service;
 
 import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import javax.annotation.PostConstruct;
 import java.sql.*;
@@ -17,15 +17,25 @@ import java.util.Map;
 public class QueryExecutionService {
 
     private final HikariDataSource hikariDataSource;
-    private final Map<String, String> queryCache = new HashMap<>();
-
-    public QueryExecutionService(HikariDataSource hikariDataSource) {
+    private final TemplateRegistry templateRegistry;
+    private final StatementCache statementCache;
+    private final DatabaseSchedulers databaseSchedulers;
+    private final int maxParallelism;
+
+    public QueryExecutionService(HikariDataSource hikariDataSource, TemplateRegistry templateRegistry,
+                                 StatementCache statementCache, DatabaseSchedulers databaseSchedulers,
+                                 @Value("${query.multi.max-parallelism:4}") int maxParallelism) {
         this.hikariDataSource = hikariDataSource;
+        this.templateRegistry = templateRegistry;
+        this.statementCache = statementCache;
+        this.databaseSchedulers = databaseSchedulers;
+        this.maxParallelism = maxParallelism;
     }
 
     @PostConstruct
     public void loadQueryCache() {
         String loadQuery = "SELECT template_id, query_string FROM db_template";
+        Map<String, TemplateDefinition> queries = new HashMap<>();
         try (Connection connection = hikariDataSource.getConnection();
              Statement statement = connection.createStatement();
              ResultSet resultSet = statement.executeQuery(loadQuery)) {
@@ -33,54 +43,54 @@ public class QueryExecutionService {
             while (resultSet.next()) {
                 String templateId = resultSet.getString("template_id");
                 String queryString = resultSet.getString("query_string");
-                queryCache.put(templateId, queryString);
+                queries.put(templateId, TemplateDefinition.of(queryString));
             }
         } catch (SQLException e) {
             e.printStackTrace(); // Implement proper logging
+            return; // Keep serving the previous snapshot
         }
+        templateRegistry.publish(queries, null);
     }
 
     public Mono<List<List<Map<String, Object>>>> executeMultipleQueries(String[] templateIds, Object[][] params) {
-        List<Mono<List<Map<String, Object>>>> queryMonos = new ArrayList<>();
+        return executeMultipleQueries(templateIds, params, ExecutionMode.SEQUENTIAL);
+    }
 
-        for (int i = 0; i < templateIds.length; i++) {
-            String templateId = templateIds[i];
-            Object[] paramSet = params[i];
-            
-            Mono<List<Map<String, Object>>> queryMono = executeQueryAsync(templateId, paramSet);
-            queryMonos.add(queryMono);
-        }
+    public Mono<List<List<Map<String, Object>>>> executeMultipleQueries(String[] templateIds, Object[][] params,
+                                                                        ExecutionMode mode) {
+        // flatMapSequential keeps results in input order while running up to 'concurrency' queries at once
+        int concurrency = mode == ExecutionMode.PARALLEL
+                ? Math.max(1, Math.min(maxParallelism, hikariDataSource.getMaximumPoolSize()))
+                : 1;
 
-        return Flux.concat(queryMonos) // Executes queries sequentially or use Flux.merge(queryMonos) for parallel execution
+        return Flux.range(0, templateIds.length)
+                   .flatMapSequential(i -> executeQueryAsync(templateIds[i], params[i]), concurrency)
                    .collectList(); // Collects all result sets into a single list
     }
 
     private Mono<List<Map<String, Object>>> executeQueryAsync(String templateId, Object[] params) {
         return Mono.fromCallable(() -> {
-            String query = queryCache.get(templateId);
-            if (query == null) {
+            CompiledTemplate template = templateRegistry.getTemplate(templateId);
+            if (template == null) {
                 throw new IllegalArgumentException("Invalid template ID: " + templateId);
             }
+            template.checkParameterCount(params.length);
 
             List<Map<String, Object>> resultSetList = new ArrayList<>();
 
             try (Connection connection = hikariDataSource.getConnection();
-                 PreparedStatement statement = connection.prepareStatement(query)) {
+                 CachedStatement<PreparedStatement> cachedStatement = statementCache.prepare(connection, template)) {
 
+                PreparedStatement statement = cachedStatement.get();
                 for (int j = 0; j < params.length; j++) {
                     statement.setObject(j + 1, params[j]); // Parameters are 1-indexed
                 }
 
                 try (ResultSet resultSet = statement.executeQuery()) {
-                    ResultSetMetaData metaData = resultSet.getMetaData();
-                    int columnCount = metaData.getColumnCount();
+                    RowLayout layout = template.rowLayout(resultSet.getMetaData());
 
                     while (resultSet.next()) {
-                        Map<String, Object> row = new HashMap<>();
-                        for (int k = 1; k <= columnCount; k++) {
-                            row.put(metaData.getColumnName(k), resultSet.getObject(k));
-                        }
-                        resultSetList.add(row);
+                        resultSetList.add(layout.readRow(resultSet));
                     }
                 }
             } catch (SQLException e) {
@@ -89,6 +99,6 @@ public class QueryExecutionService {
             }
 
             return resultSetList;
-        }).subscribeOn(Schedulers.boundedElastic()); // Runs the query asynchronously
+        }).subscribeOn(databaseSchedulers.query()); // Runs the query asynchronously
     }
 }
@@ -12,7 +12,9 @@ public class QueryExecutionService {
             String catalogName = (String) requestBody.get("catalogName");
             String procedureName = (String) requestBody.get("procedureName");
 
-            Map<Integer, Object> inParams = RequestConverter.convertInParams((Map<String, String>) requestBody.get("inParams"));
+            Map<String, String> rawInParams = (Map<String, String>) requestBody.get("inParams");
+            Map<Integer, Object> inParams = RequestConverter.convertInParams(rawInParams,
+                    ConversionPlan.inferred(rawInParams.size()));
             Map<Integer, String> outParams = RequestConverter.convertOutParams((Map<String, String>) requestBody.get("outParams"));
 
             String callStatement = buildProcedureCall(schemaName, catalogName, procedureName, inParams.size(), outParams.size());
@@ -0,0 +1,46 @@
+package com.example.service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs templates and stored procedures against the database. {@code query.engine} picks
+ * the implementation: {@code jdbc} (the default) runs blocking JDBC calls on the database
+ * bulkheads, {@code r2dbc} runs them on a non-blocking R2DBC connection pool. Both return
+ * the same shapes, so callers do not depend on the engine.
+ */
+public interface QueryExecutor {
+
+    /**
+     * All rows of a template, served from the result cache when the template allows it.
+     */
+    Mono<List<Map<String, Object>>> queryForRows(String templateId, Object... params);
+
+    /**
+     * Streams a parameterless template's rows, fetching {@code fetchSize} rows per round trip.
+     */
+    Flux<Map<String, Object>> executeSingleQuery(String templateId, int fetchSize);
+
+    Mono<List<List<Map<String, Object>>>> executeMultipleQueries(String[] templateIds, Object[][] params,
+                                                                 ExecutionMode mode);
+
+    /**
+     * Executes every (template, params) pair in one session and returns each update count in input order.
+     */
+    Mono<int[]> executeBatch(String[] templateIds, Object[][] params);
+
+    /**
+     * Calls a stored procedure with named IN values and returns every OUT value by argument name.
+     */
+    Mono<Map<String, Object>> callProcedure(String schemaName, String packageName, String procedureName,
+                                            Map<String, Object> inParams);
+
+    /**
+     * Calls a stored procedure and streams its REF CURSOR OUT parameters as out/row/end envelopes.
+     */
+    Flux<Map<String, Object>> streamProcedure(String schemaName, String packageName, String procedureName,
+                                              Map<String, Object> inParams, int fetchSize);
+}
@@ -0,0 +1,154 @@
+package com.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-template and per-procedure meters for each stage of a database call: pool
+ * acquire, prepare, execute, fetch, rows, serialized bytes and errors. All timers and
+ * summaries publish percentile histograms.
+ * <p>
+ * Tag cardinality is bounded: where a {@link TemplateRegistry} is present, template ids
+ * are only used as tags if the template exists, and at most {@code maxTargets} distinct templates and procedures are tagged
+ * individually; anything beyond that is reported as {@code other}.
+ */
+@Component
+public class QueryMetrics {
+
+    static final String OTHER = "other";
+
+    private final MeterRegistry meterRegistry;
+    // Null in applications that keep templates elsewhere; the target cap still applies
+    private final TemplateRegistry templateRegistry;
+    private final int maxTargets;
+    private final Map<String, PipelineMeters> meters = new ConcurrentHashMap<>();
+
+    public QueryMetrics(MeterRegistry meterRegistry, ObjectProvider<TemplateRegistry> templateRegistry,
+                        @Value("${query.metrics.max-tagged-targets:200}") int maxTargets) {
+        this.meterRegistry = meterRegistry;
+        this.templateRegistry = templateRegistry.getIfAvailable();
+        this.maxTargets = maxTargets;
+    }
+
+    public PipelineMeters forTemplate(String templateId) {
+        boolean known = templateId != null
+                && (templateRegistry == null || templateRegistry.getTemplate(templateId) != null);
+        return metersFor("template", known ? templateId : OTHER);
+    }
+
+    public PipelineMeters forProcedure(String procedureName) {
+        return metersFor("procedure", procedureName == null ? OTHER : procedureName);
+    }
+
+    private PipelineMeters metersFor(String type, String target) {
+        String key = type + ':' + target;
+        PipelineMeters existing = meters.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (meters.size() >= maxTargets && !OTHER.equals(target)) {
+            return metersFor(type, OTHER);
+        }
+        return meters.computeIfAbsent(key, k -> new PipelineMeters(meterRegistry, type, target));
+    }
+
+    /**
+     * Meters of one template or procedure. Stage timings use a running mark:
+     * {@code mark = meters.recordPrepare(mark)} records the time since {@code mark}
+     * and returns the current time as the start of the next stage.
+     */
+    public static final class PipelineMeters {
+
+        private final MeterRegistry meterRegistry;
+        private final String type;
+        private final String target;
+        private final Timer acquire;
+        private final Timer prepare;
+        private final Timer execute;
+        private final Timer fetch;
+        private final DistributionSummary rows;
+        private final DistributionSummary bytes;
+        // Exception class -> counter; the set of exception types thrown is small
+        private final Map<String, Counter> errors = new ConcurrentHashMap<>();
+
+        PipelineMeters(MeterRegistry meterRegistry, String type, String target) {
+            this.meterRegistry = meterRegistry;
+            this.type = type;
+            this.target = target;
+            this.acquire = timer("query.pool.acquire", "Wait for a pooled connection");
+            this.prepare = timer("query.prepare", "Statement preparation or statement cache lookup");
+            this.execute = timer("query.execute", "Statement execution");
+            this.fetch = timer("query.fetch", "Reading and mapping result rows");
+            this.rows = DistributionSummary.builder("query.rows")
+                    .description("Rows returned per call")
+                    .tags("type", type, "target", target)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.bytes = DistributionSummary.builder("query.response.bytes")
+                    .description("Bytes serialized per streamed response")
+                    .baseUnit("bytes")
+                    .tags("type", type, "target", target)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        private Timer timer(String name, String description) {
+            return Timer.builder(name)
+                    .description(description)
+                    .tags("type", type, "target", target)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        public long recordAcquire(long mark) {
+            return record(acquire, mark);
+        }
+
+        public long recordPrepare(long mark) {
+            return record(prepare, mark);
+        }
+
+        public long recordExecute(long mark) {
+            return record(execute, mark);
+        }
+
+        public long recordFetch(long mark) {
+            return record(fetch, mark);
+        }
+
+        public void recordFetchNanos(long nanos) {
+            fetch.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void recordRows(long count) {
+            rows.record(count);
+        }
+
+        public void recordBytes(long count) {
+            bytes.record(count);
+        }
+
+        public void recordError(Throwable error) {
+            errors.computeIfAbsent(error.getClass().getSimpleName(), exception -> Counter.builder("query.errors")
+                    .description("Failed calls")
+                    .tags("type", type, "target", target, "exception", exception)
+                    .register(meterRegistry))
+                    .increment();
+        }
+
+        private static long record(Timer timer, long mark) {
+            long now = System.nanoTime();
+            timer.record(now - mark, TimeUnit.NANOSECONDS);
+            return now;
+        }
+    }
+}
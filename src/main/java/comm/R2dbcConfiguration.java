@@ -0,0 +1,41 @@
+package com.example.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * R2DBC connection pool for {@code query.engine=r2dbc}. The JDBC pool stays in place for
+ * template loading and procedure signatures.
+ */
+@Configuration
+@ConditionalOnProperty(name = "query.engine", havingValue = "r2dbc")
+public class R2dbcConfiguration {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool r2dbcConnectionPool(@Value("${query.r2dbc.url}") String url,
+                                              @Value("${query.r2dbc.username}") String username,
+                                              @Value("${query.r2dbc.password}") String password,
+                                              @Value("${query.r2dbc.pool.initial-size:5}") int initialSize,
+                                              @Value("${query.r2dbc.pool.max-size:20}") int maxSize,
+                                              @Value("${query.r2dbc.pool.max-idle-time-ms:600000}") long maxIdleTimeMillis) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        ConnectionPoolConfiguration configuration = ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("R2dbcPool-Oracle")
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMillis))
+                .build();
+        return new ConnectionPool(configuration);
+    }
+}
@@ -0,0 +1,629 @@
+package com.example.service;
+
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.OutParameters;
+import io.r2dbc.spi.Parameters;
+import io.r2dbc.spi.R2dbcType;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.Type;
+import oracle.r2dbc.OracleR2dbcTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * {@link QueryExecutor} on Oracle R2DBC, enabled with {@code query.engine=r2dbc}. No thread
+ * is held while a call waits on the database, so concurrency is bounded by the R2DBC pool
+ * rather than by the bulkhead threads.
+ * <p>
+ * Results match the JDBC engine: rows are {@link CompactRow}s keyed by column name, DATE
+ * and TIMESTAMP values come back as {@link Timestamp}, update counts and OUT values have the
+ * same shape. Slow calls go to the same {@link SlowQueryLog}.
+ * Templates still load over JDBC at startup, a procedure signature that is not cached
+ * yet is read from ALL_ARGUMENTS over JDBC on the procedure bulkhead, and a template's
+ * markers are described over JDBC the first time it binds a null. Templates written
+ * in JDBC escape syntax ({@code {call ...}}) are not understood by the R2DBC driver and
+ * must use a PL/SQL block instead.
+ * <p>
+ * Not supported yet: single-key lookups are not coalesced ({@link LookupCoalescer} runs
+ * blocking JDBC batches), and every call goes to the R2DBC connection factory, so
+ * {@code query.replicas} routing only applies to the JDBC engine.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "query.engine", havingValue = "r2dbc")
+public class R2dbcQueryExecutor implements QueryExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(R2dbcQueryExecutor.class);
+
+    private final ConnectionFactory connectionFactory;
+    // JDBC side of the same database, used only to describe template markers for null binds
+    private final DataSource dataSource;
+    private final TemplateRegistry templateRegistry;
+    private final ResultCache resultCache;
+    private final ProcedureSignatureCache procedureSignatureCache;
+    private final QueryMetrics queryMetrics;
+    private final SlowQueryLog slowQueryLog;
+    private final DatabaseSchedulers databaseSchedulers;
+    private final int maxStreamFetchSize;
+    private final int maxParallelism;
+    private final int batchSize;
+
+    public R2dbcQueryExecutor(ConnectionFactory connectionFactory, DataSource dataSource, TemplateRegistry templateRegistry,
+                              ResultCache resultCache, ProcedureSignatureCache procedureSignatureCache,
+                              QueryMetrics queryMetrics, SlowQueryLog slowQueryLog,
+                              DatabaseSchedulers databaseSchedulers,
+                              @Value("${query.stream.max-fetch-size:1000}") int maxStreamFetchSize,
+                              @Value("${query.multi.max-parallelism:4}") int maxParallelism,
+                              @Value("${query.batch.size:500}") int batchSize) {
+        this.connectionFactory = connectionFactory;
+        this.dataSource = dataSource;
+        this.templateRegistry = templateRegistry;
+        this.resultCache = resultCache;
+        this.procedureSignatureCache = procedureSignatureCache;
+        this.queryMetrics = queryMetrics;
+        this.slowQueryLog = slowQueryLog;
+        this.databaseSchedulers = databaseSchedulers;
+        this.maxStreamFetchSize = maxStreamFetchSize;
+        this.maxParallelism = maxParallelism;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public Mono<List<Map<String, Object>>> queryForRows(String templateId, Object... params) {
+        return resultCache.get(templateRegistry.getTemplate(templateId), params,
+                () -> queryRows(templateId, params, 0).collectList(), ResultCache::weighRows);
+    }
+
+    @Override
+    public Flux<Map<String, Object>> executeSingleQuery(String templateId, int fetchSize) {
+        return Flux.defer(() -> {
+            // Only an already cached result is served from memory; a miss streams and is not cached
+            Mono<List<Map<String, Object>>> cached = resultCache.getIfPresent(template(templateId), new Object[0]);
+            if (cached != null) {
+                return cached.flatMapIterable(rows -> rows);
+            }
+            return queryRows(templateId, new Object[0], fetchSize);
+        });
+    }
+
+    private Flux<Map<String, Object>> queryRows(String templateId, Object[] params, int fetchSize) {
+        QueryMetrics.PipelineMeters meters = queryMetrics.forTemplate(templateId);
+        return Flux.defer(() -> {
+            CompiledTemplate template = template(templateId);
+            template.checkParameterCount(params.length);
+            AtomicLong rows = new AtomicLong();
+            // Start, acquired, prepared, executed, fetched
+            long[] marks = new long[5];
+            return describeNullBinds(template, new Object[][]{params}, 0, 1)
+                    .thenMany(Flux.usingWhen(acquire(meters, marks),
+                            connection -> select(connection, template, params, fetchSize, meters, marks),
+                            Connection::close))
+                    .doOnNext(row -> rows.incrementAndGet())
+                    .doOnComplete(() -> {
+                        // A streamed read's time includes waiting on the client, so only whole reads are logged
+                        if (fetchSize <= 0) {
+                            marks[4] = meters.recordFetch(marks[3]);
+                            slowQueryLog.onTemplateCall(template, params, marks, rows.get());
+                        }
+                    })
+                    .doFinally(signal -> meters.recordRows(rows.get()));
+        }).doOnError(meters::recordError);
+    }
+
+    private Flux<Map<String, Object>> select(Connection connection, CompiledTemplate template, Object[] params,
+                                             int fetchSize, QueryMetrics.PipelineMeters meters, long[] marks) {
+        Statement statement = bind(connection.createStatement(template.getSql()), template, params);
+        if (fetchSize > 0) {
+            statement.fetchSize(Math.min(fetchSize, maxStreamFetchSize));
+        }
+        // R2DBC has no separate prepare step; binding counts as preparing
+        marks[2] = System.nanoTime();
+        return Flux.from(statement.execute())
+                .doOnNext(result -> marks[3] = meters.recordExecute(marks[2]))
+                .concatMap(result -> readRows(result, template));
+    }
+
+    @Override
+    public Mono<List<List<Map<String, Object>>>> executeMultipleQueries(String[] templateIds, Object[][] params,
+                                                                        ExecutionMode mode) {
+        if (templateIds.length != params.length) {
+            return Mono.error(new IllegalArgumentException("templateIds and params must have the same length"));
+        }
+        if (mode == ExecutionMode.PARALLEL && templateIds.length > 1) {
+            return Flux.range(0, templateIds.length)
+                    .flatMapSequential(i -> queryRows(templateIds[i], params[i], 0).collectList(), maxParallelism)
+                    .collectList();
+        }
+        // One connection for all of them, like the JDBC engine's sequential mode
+        return Flux.range(0, templateIds.length)
+                .concatMap(i -> describeNullBinds(template(templateIds[i]), params, i, i + 1))
+                .thenMany(Flux.usingWhen(connectionFactory.create(),
+                            connection -> Flux.range(0, templateIds.length).concatMap(i -> {
+                                CompiledTemplate template = template(templateIds[i]);
+                                template.checkParameterCount(params[i].length);
+                                QueryMetrics.PipelineMeters meters = queryMetrics.forTemplate(templateIds[i]);
+                                // The connection is shared, so each query starts with it already acquired
+                                long[] marks = new long[5];
+                                marks[0] = marks[1] = System.nanoTime();
+                                return select(connection, template, params[i], 0, meters, marks)
+                                        .collectList()
+                                        .doOnNext(rows -> {
+                                            marks[4] = meters.recordFetch(marks[3]);
+                                            slowQueryLog.onTemplateCall(template, params[i], marks, rows.size());
+                                        });
+                            }),
+                            Connection::close))
+                .collectList();
+    }
+
+    @Override
+    public Mono<int[]> executeBatch(String[] templateIds, Object[][] params) {
+        if (templateIds.length != params.length) {
+            return Mono.error(new IllegalArgumentException("templateIds and params must have the same length"));
+        }
+        return Mono.usingWhen(connectionFactory.create(),
+                connection -> {
+                    int[] updateCounts = new int[templateIds.length];
+                    return Mono.from(connection.setAutoCommit(false))
+                            .thenMany(Flux.fromIterable(runsOf(templateIds)))
+                            .concatMap(run -> executeRun(connection, templateIds, params, run[0], run[1], updateCounts))
+                            .then(Mono.fromSupplier(() -> updateCounts));
+                },
+                this::release,
+                (connection, error) -> Mono.from(connection.rollbackTransaction())
+                        .onErrorResume(e -> Mono.empty())
+                        .then(release(connection)),
+                this::release);
+    }
+
+    // [from, to) ranges of consecutive calls to the same template
+    private static List<int[]> runsOf(String[] templateIds) {
+        List<int[]> runs = new ArrayList<>();
+        int i = 0;
+        while (i < templateIds.length) {
+            int runEnd = i + 1;
+            while (runEnd < templateIds.length && templateIds[runEnd].equals(templateIds[i])) {
+                runEnd++;
+            }
+            runs.add(new int[]{i, runEnd});
+            i = runEnd;
+        }
+        return runs;
+    }
+
+    /**
+     * Consecutive calls to the same DML template are bound as one batched statement per
+     * chunk of {@code batchSize}, committed per chunk; anything else runs and commits call by call.
+     */
+    private Mono<Void> executeRun(Connection connection, String[] templateIds, Object[][] params,
+                                  int from, int to, int[] updateCounts) {
+        CompiledTemplate template = template(templateIds[from]);
+        return describeNullBinds(template, params, from, to)
+                .then(Mono.defer(() -> executeRun(connection, template, params, from, to, updateCounts)));
+    }
+
+    private Mono<Void> executeRun(Connection connection, CompiledTemplate template, Object[][] params,
+                                  int from, int to, int[] updateCounts) {
+        QueryMetrics.PipelineMeters meters = queryMetrics.forTemplate(template.getTemplateId());
+        if (template.getKind() == StatementKind.DML && to - from > 1) {
+            return Flux.range(0, (to - from + batchSize - 1) / batchSize)
+                    .concatMap(chunk -> {
+                        int chunkStart = from + chunk * batchSize;
+                        int chunkEnd = Math.min(to, chunkStart + batchSize);
+                        Statement statement = connection.createStatement(template.getSql());
+                        for (int j = chunkStart; j < chunkEnd; j++) {
+                            template.checkParameterCount(params[j].length);
+                            if (j > chunkStart) {
+                                statement.add();
+                            }
+                            bind(statement, template, params[j]);
+                        }
+                        return updateCounts(statement, meters)
+                                .doOnNext(counts -> {
+                                    for (int k = 0; k < counts.size(); k++) {
+                                        updateCounts[chunkStart + k] = counts.get(k);
+                                    }
+                                })
+                                .then(Mono.from(connection.commitTransaction()));
+                    })
+                    .then();
+        }
+        return Flux.range(from, to - from)
+                .concatMap(j -> {
+                    template.checkParameterCount(params[j].length);
+                    Statement statement = bind(connection.createStatement(template.getSql()), template, params[j]);
+                    return updateCounts(statement, meters)
+                            .doOnNext(counts -> updateCounts[j] = counts.isEmpty() ? -1 : counts.get(0))
+                            .then(Mono.from(connection.commitTransaction()));
+                })
+                .then();
+    }
+
+    // One count per binding; a result without one (a query or a call) counts as -1, like JDBC getUpdateCount()
+    private static Mono<List<Integer>> updateCounts(Statement statement, QueryMetrics.PipelineMeters meters) {
+        long mark = System.nanoTime();
+        return Flux.from(statement.execute())
+                .concatMap(result -> Mono.from(result.getRowsUpdated()).map(Long::intValue).defaultIfEmpty(-1))
+                .collectList()
+                .doOnNext(counts -> meters.recordExecute(mark));
+    }
+
+    private Mono<Void> release(Connection connection) {
+        return Mono.from(connection.setAutoCommit(true))
+                .onErrorResume(e -> Mono.empty())
+                .then(Mono.from(connection.close()));
+    }
+
+    @Override
+    public Mono<Map<String, Object>> callProcedure(String schemaName, String packageName, String procedureName,
+                                                   Map<String, Object> inParams) {
+        return signature(schemaName, packageName, procedureName)
+                .flatMap(signature -> {
+                    // Meters are tagged with the resolved name only, so unknown names never register any
+                    QueryMetrics.PipelineMeters meters = queryMetrics.forProcedure(signature.getQualifiedName());
+                    Map<String, Object> values = QueryExecutionService.namedInValues(signature, inParams);
+                    long[] marks = new long[5];
+                    return Mono.usingWhen(acquire(meters, marks),
+                                    connection -> call(connection, signature, values, meters, marks)
+                                            .flatMap(this::readCursors),
+                                    Connection::close)
+                            .doOnNext(outValues -> {
+                                marks[4] = System.nanoTime();
+                                slowQueryLog.onProcedureCall(signature.getQualifiedName(),
+                                        values.values().toArray(), marks, 0);
+                            })
+                            .doOnError(meters::recordError);
+                });
+    }
+
+    // Cursors must be drained while the connection is still borrowed
+    private Mono<Map<String, Object>> readCursors(Map<String, Object> outValues) {
+        List<String> cursorNames = new ArrayList<>();
+        outValues.forEach((name, value) -> {
+            if (value instanceof Result) {
+                cursorNames.add(name);
+            }
+        });
+        return Flux.fromIterable(cursorNames)
+                .concatMap(name -> readRows((Result) outValues.get(name), null)
+                        .collectList()
+                        .doOnNext(rows -> outValues.put(name, rows)))
+                .then(Mono.just(outValues));
+    }
+
+    /**
+     * Same envelopes as the JDBC engine. R2DBC has no fetch size for a REF CURSOR, so
+     * {@code fetchSize} is ignored; rows are still only read as downstream requests them.
+     */
+    @Override
+    public Flux<Map<String, Object>> streamProcedure(String schemaName, String packageName, String procedureName,
+                                                     Map<String, Object> inParams, int fetchSize) {
+        return signature(schemaName, packageName, procedureName)
+                .flatMapMany(signature -> {
+                    QueryMetrics.PipelineMeters meters = queryMetrics.forProcedure(signature.getQualifiedName());
+                    Map<String, Object> values = QueryExecutionService.namedInValues(signature, inParams);
+                    long[] marks = new long[5];
+                    return Flux.usingWhen(acquire(meters, marks),
+                            connection -> call(connection, signature, values, meters, marks)
+                                    .flatMapMany(outValues -> envelopes(signature, outValues)),
+                            Connection::close)
+                            .doOnError(meters::recordError);
+                });
+    }
+
+    private Flux<Map<String, Object>> envelopes(ProcedureSignature signature, Map<String, Object> outValues) {
+        Map<String, Object> scalars = new LinkedHashMap<>();
+        Map<String, Result> cursors = new LinkedHashMap<>();
+        for (ProcedureArgument argument : signature.getArguments()) {
+            if (!argument.isOut()) {
+                continue;
+            }
+            Object value = outValues.get(argument.getName());
+            if (!argument.isCursor()) {
+                scalars.put(argument.getName(), value);
+            } else if (value != null) {
+                cursors.put(argument.getName(), (Result) value);
+            }
+        }
+        Map<String, Object> outEnvelope = new LinkedHashMap<>();
+        outEnvelope.put("type", "out");
+        outEnvelope.put("values", scalars);
+        return Flux.concat(Flux.just(outEnvelope), Flux.fromIterable(cursors.entrySet())
+                .concatMap(cursor -> streamCursor(cursor.getKey(), cursor.getValue())));
+    }
+
+    private static Flux<Map<String, Object>> streamCursor(String name, Result cursor) {
+        AtomicLong rows = new AtomicLong();
+        return readRows(cursor, null)
+                .map(row -> {
+                    rows.incrementAndGet();
+                    Map<String, Object> envelope = new LinkedHashMap<>();
+                    envelope.put("type", "row");
+                    envelope.put("cursor", name);
+                    envelope.put("row", row);
+                    return envelope;
+                })
+                .concatWith(Mono.fromSupplier(() -> {
+                    Map<String, Object> envelope = new LinkedHashMap<>();
+                    envelope.put("type", "end");
+                    envelope.put("cursor", name);
+                    envelope.put("rows", rows.get());
+                    return envelope;
+                }));
+    }
+
+    /**
+     * Executes the call and returns its OUT values by argument name; a REF CURSOR comes
+     * back as an unread {@link Result}.
+     */
+    private Mono<Map<String, Object>> call(Connection connection, ProcedureSignature signature,
+                                           Map<String, Object> values, QueryMetrics.PipelineMeters meters,
+                                           long[] marks) {
+        ConversionPlan plan = signature.getConversionPlan();
+        Statement statement = connection.createStatement(signature.getBlockSql());
+        for (ProcedureArgument argument : signature.getArguments()) {
+            int index = argument.getPosition() - 1;
+            Type type = r2dbcType(argument);
+            Object value = argument.isIn()
+                    ? argumentValue(argument, plan.convert(index, values.get(argument.getName())))
+                    : null;
+            if (argument.isIn() && argument.isOut()) {
+                statement.bind(index, value == null ? Parameters.inOut(type) : Parameters.inOut(type, value));
+            } else if (argument.isOut()) {
+                statement.bind(index, Parameters.out(type));
+            } else {
+                statement.bind(index, value == null ? Parameters.in(type) : Parameters.in(type, value));
+            }
+        }
+        marks[2] = System.nanoTime();
+        return Flux.from(statement.execute())
+                .doOnNext(result -> marks[3] = meters.recordExecute(marks[2]))
+                .concatMap(result -> result.filter(segment -> segment instanceof Result.OutSegment)
+                        .map(readable -> readOutParameters((OutParameters) readable, signature)))
+                .next()
+                .defaultIfEmpty(new LinkedHashMap<>());
+    }
+
+    private static Map<String, Object> readOutParameters(OutParameters outParameters, ProcedureSignature signature) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        int index = 0;
+        for (ProcedureArgument argument : signature.getArguments()) {
+            if (argument.isOut()) {
+                values.put(argument.getName(), fromR2dbc(outParameters.get(index++)));
+            }
+        }
+        return values;
+    }
+
+    private static Type r2dbcType(ProcedureArgument argument) {
+        if (argument.isCursor()) {
+            return OracleR2dbcTypes.REF_CURSOR;
+        }
+        if (argument.isCollection()) {
+            return OracleR2dbcTypes.arrayType(argument.getTypeName());
+        }
+        Type type = r2dbcType(argument.getSqlType());
+        if (type == null) {
+            throw new IllegalArgumentException("Argument " + argument.getName() + " of type "
+                    + argument.getDataType() + " is not supported by the R2DBC engine");
+        }
+        return type;
+    }
+
+    // R2DBC type for a JDBC type, or null if the engine has no mapping for it
+    private static Type r2dbcType(int sqlType) {
+        switch (sqlType) {
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.SMALLINT:
+                return R2dbcType.NUMERIC;
+            case Types.FLOAT:
+                return R2dbcType.REAL;
+            case Types.DOUBLE:
+                return R2dbcType.DOUBLE;
+            case Types.CHAR:
+                return R2dbcType.CHAR;
+            case Types.VARCHAR:
+                return R2dbcType.VARCHAR;
+            case Types.CLOB:
+                return R2dbcType.CLOB;
+            case Types.NCLOB:
+                return R2dbcType.NCLOB;
+            case Types.BLOB:
+                return R2dbcType.BLOB;
+            case Types.VARBINARY:
+            case Types.BINARY:
+            case Types.LONGVARBINARY:
+                return R2dbcType.VARBINARY;
+            case Types.DATE:
+            case Types.TIMESTAMP:
+                return R2dbcType.TIMESTAMP;
+            case Types.BOOLEAN:
+                return R2dbcType.BOOLEAN;
+            default:
+                return null;
+        }
+    }
+
+    // Oracle R2DBC binds a collection from a Java array of one element type
+    private static Object argumentValue(ProcedureArgument argument, Object value) {
+        if (value == null || !argument.isCollection()) {
+            return toR2dbc(value);
+        }
+        Object[] elements = QueryExecutionService.collectionElements(argument, value);
+        Class<?> elementClass = null;
+        for (int i = 0; i < elements.length; i++) {
+            Object element = elements[i] instanceof Number && !(elements[i] instanceof BigDecimal)
+                    ? new BigDecimal(elements[i].toString())
+                    : toR2dbc(elements[i]);
+            elements[i] = element;
+            if (element != null) {
+                if (elementClass != null && elementClass != element.getClass()) {
+                    throw new IllegalArgumentException("Parameter " + argument.getName()
+                            + " mixes element types " + elementClass.getSimpleName()
+                            + " and " + element.getClass().getSimpleName());
+                }
+                elementClass = element.getClass();
+            }
+        }
+        if (elementClass == null) {
+            elementClass = String.class;
+        }
+        Object[] typed = (Object[]) java.lang.reflect.Array.newInstance(elementClass, elements.length);
+        System.arraycopy(elements, 0, typed, 0, elements.length);
+        return typed;
+    }
+
+    private Mono<ProcedureSignature> signature(String schemaName, String packageName, String procedureName) {
+        return Mono.defer(() -> {
+            ProcedureSignature cached = procedureSignatureCache.getIfFresh(schemaName, packageName, procedureName);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            // A miss reads ALL_ARGUMENTS over JDBC; keep it off the event loop
+            return Mono.fromCallable(() -> procedureSignatureCache.get(schemaName, packageName, procedureName))
+                    .subscribeOn(databaseSchedulers.procedure());
+        });
+    }
+
+    private CompiledTemplate template(String templateId) {
+        CompiledTemplate template = templateRegistry.getTemplate(templateId);
+        if (template == null) {
+            throw new IllegalArgumentException("Invalid template ID: " + templateId);
+        }
+        return template;
+    }
+
+    private Mono<Connection> acquire(QueryMetrics.PipelineMeters meters, long[] marks) {
+        return Mono.defer(() -> {
+            long mark = marks[0] = System.nanoTime();
+            return Mono.from(connectionFactory.create())
+                    .doOnNext(connection -> marks[1] = meters.recordAcquire(mark));
+        });
+    }
+
+    /**
+     * Describes the template's markers over JDBC before it first binds a null, so the null
+     * goes in with the target's type: a VARCHAR NULL is not accepted for LOB and RAW
+     * targets. Runs at most once per template revision, on the query bulkhead.
+     */
+    private Mono<Void> describeNullBinds(CompiledTemplate template, Object[][] params, int from, int to) {
+        if (template.getParameterSqlTypes() != null || !hasNull(params, from, to)) {
+            return Mono.empty();
+        }
+        return Mono.fromRunnable(() -> {
+            try (java.sql.Connection connection = dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(template.getSql())) {
+                template.parameterSqlTypes(statement.getParameterMetaData());
+            } catch (SQLException e) {
+                log.debug("Could not describe the markers of template {}; nulls bind as VARCHAR",
+                        template.getTemplateId(), e);
+                template.parameterSqlTypes(null);
+            }
+        }).subscribeOn(databaseSchedulers.query()).then();
+    }
+
+    private static boolean hasNull(Object[][] params, int from, int to) {
+        for (int j = from; j < to; j++) {
+            for (Object value : params[j]) {
+                if (value == null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Statement bind(Statement statement, CompiledTemplate template, Object[] params) {
+        int[] sqlTypes = template.getParameterSqlTypes();
+        for (int i = 0; i < params.length; i++) {
+            Object value = toR2dbc(params[i]);
+            if (value == null) {
+                Type type = sqlTypes == null || i >= sqlTypes.length ? null : r2dbcType(sqlTypes[i]);
+                statement.bind(i, Parameters.in(type == null ? R2dbcType.VARCHAR : type));
+            } else {
+                statement.bind(i, value);
+            }
+        }
+        return statement;
+    }
+
+    /**
+     * Reads a result into {@link CompactRow}s. The layout is resolved from the first row's
+     * metadata and shared by the rest; a template keeps it across executions, like the
+     * JDBC engine does.
+     */
+    private static Flux<Map<String, Object>> readRows(Result result, CompiledTemplate template) {
+        // Rows of one result are mapped one after another, never concurrently
+        RowLayout[] layout = new RowLayout[1];
+        return Flux.from(result.map((row, metadata) -> {
+            if (layout[0] == null) {
+                layout[0] = layoutOf(metadata, template);
+            }
+            return layout[0].readRow(column -> fromR2dbc(row.get(column - 1)));
+        }));
+    }
+
+    private static RowLayout layoutOf(RowMetadata metadata, CompiledTemplate template) {
+        List<String> columnNames = metadata.getColumnMetadatas().stream()
+                .map(ColumnMetadata::getName)
+                .collect(Collectors.toList());
+        return template == null ? RowLayout.of(columnNames) : template.rowLayout(columnNames);
+    }
+
+    // Values converted by ParameterType are JDBC types; the R2DBC driver wants java.time
+    private static Object toR2dbc(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime();
+        }
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate();
+        }
+        return value;
+    }
+
+    // Gives R2DBC values the shape the JDBC engine returns
+    private static Object fromR2dbc(Object value) {
+        if (value instanceof LocalDateTime) {
+            return Timestamp.valueOf((LocalDateTime) value);
+        }
+        if (value instanceof ByteBuffer) {
+            ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        }
+        if (value instanceof Object[]) {
+            return Arrays.asList((Object[]) value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.service;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import oracle.jdbc.pool.OracleDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chooses the database a template runs on. Read-only queries (db_template.read_only = 'Y')
+ * go to the standby / replica pools listed in {@code query.replica.urls}, round-robin over
+ * the healthy ones; everything else, and every read when no replica is usable, goes to
+ * the primary.
+ * <p>
+ * A replica that cannot open a connection is marked down at once and the read moves on
+ * to the next one. A replica whose pool is merely exhausted (every connection busy) stays
+ * in rotation: the read tries the other replicas, and fails with the pool timeout when all
+ * of them are busy rather than landing on the primary. A background check re-validates
+ * every replica and brings recovered ones back. Replica pools are read-only sessions with
+ * a short connection timeout, so a dead standby costs one quick failover rather than a
+ * long wait.
+ */
+@Component
+public class ReplicaRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRouter.class);
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    private final int validationTimeoutSeconds;
+    private final Counter primaryReads;
+
+    public ReplicaRouter(HikariDataSource primary, MeterRegistry meterRegistry,
+                         @Value("${query.replica.urls:}") List<String> urls,
+                         @Value("${query.replica.username:${spring.datasource.username}}") String username,
+                         @Value("${query.replica.password:${spring.datasource.password}}") String password,
+                         @Value("${query.replica.maximum-pool-size:10}") int maximumPoolSize,
+                         @Value("${query.replica.connection-timeout-ms:2000}") long connectionTimeout,
+                         @Value("${query.replica.validation-timeout-seconds:2}") int validationTimeoutSeconds)
+            throws SQLException {
+        this.primary = primary;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        List<Replica> pools = new ArrayList<>();
+        for (String url : urls) {
+            if (url.trim().isEmpty()) {
+                continue;
+            }
+            String name = "replica-" + (pools.size() + 1);
+            Replica replica = new Replica(name, createPool(name, url.trim(), username, password,
+                    maximumPoolSize, connectionTimeout));
+            Gauge.builder("query.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .description("Whether the replica currently takes reads")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+            replica.reads = Counter.builder("query.replica.reads")
+                    .description("Read-only template calls routed to a database")
+                    .tag("target", name)
+                    .register(meterRegistry);
+            pools.add(replica);
+            log.info("Read-only templates may run on {} ({})", name, url.trim());
+        }
+        this.replicas = Collections.unmodifiableList(pools);
+        this.primaryReads = Counter.builder("query.replica.reads")
+                .description("Read-only template calls routed to a database")
+                .tag("target", "primary")
+                .register(meterRegistry);
+    }
+
+    private static HikariDataSource createPool(String name, String url, String username, String password,
+                                               int maximumPoolSize, long connectionTimeout) throws SQLException {
+        HikariConfig hikariConfig = new HikariConfig();
+        if (url.startsWith("jdbc:oracle:")) {
+            OracleDataSource oracleDataSource = new OracleDataSource();
+            oracleDataSource.setURL(url);
+            oracleDataSource.setUser(username);
+            oracleDataSource.setPassword(password);
+            oracleDataSource.setImplicitCachingEnabled(true);
+            hikariConfig.setDataSource(oracleDataSource);
+        } else {
+            hikariConfig.setJdbcUrl(url);
+            hikariConfig.setUsername(username);
+            hikariConfig.setPassword(password);
+        }
+        hikariConfig.setPoolName("HikariPool-" + name);
+        hikariConfig.setMaximumPoolSize(maximumPoolSize);
+        hikariConfig.setMinimumIdle(Math.min(2, maximumPoolSize));
+        hikariConfig.setConnectionTimeout(connectionTimeout);
+        hikariConfig.setReadOnly(true);
+        // A standby that is down at startup must not keep the application from starting
+        hikariConfig.setInitializationFailTimeout(-1);
+        return new HikariDataSource(hikariConfig);
+    }
+
+    /**
+     * A connection for running {@code template}: from a healthy replica for read-only
+     * queries, from the primary otherwise.
+     */
+    public Connection connectionFor(CompiledTemplate template) throws SQLException {
+        return isReplicaRead(template) ? readConnection() : primary.getConnection();
+    }
+
+    /**
+     * Same as {@link #connectionFor} for a group of templates sharing one connection;
+     * only goes to a replica if every one of them could.
+     */
+    public Connection connectionFor(Collection<CompiledTemplate> templates) throws SQLException {
+        if (templates.isEmpty()) {
+            return primary.getConnection();
+        }
+        for (CompiledTemplate template : templates) {
+            if (!isReplicaRead(template)) {
+                return primary.getConnection();
+            }
+        }
+        return readConnection();
+    }
+
+    private static boolean isReplicaRead(CompiledTemplate template) {
+        return template != null && template.isReadOnly() && template.isQuery();
+    }
+
+    private Connection readConnection() throws SQLException {
+        int count = replicas.size();
+        SQLException busy = null;
+        if (count > 0) {
+            int start = Math.floorMod(next.getAndIncrement(), count);
+            for (int i = 0; i < count; i++) {
+                Replica replica = replicas.get((start + i) % count);
+                if (!replica.healthy) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replica.reads.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    if (replica.isSaturated(e)) {
+                        busy = e;
+                    } else {
+                        replica.markDown(e);
+                    }
+                }
+            }
+        }
+        if (busy != null) {
+            // Replicas are up but all busy; moving their reads to the primary would overload it
+            throw busy;
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    /**
+     * Re-validates every replica; recovered ones take reads again, failing ones stop.
+     */
+    @Scheduled(fixedDelayString = "${query.replica.health-interval-ms:5000}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (connection.isValid(validationTimeoutSeconds)) {
+                    replica.markUp();
+                } else {
+                    replica.markDown(null);
+                }
+            } catch (SQLException e) {
+                // A pool too busy to spare a connection for the check is still serving reads
+                if (!replica.isSaturated(e)) {
+                    replica.markDown(e);
+                }
+            }
+        }
+    }
+
+    public int healthyReplicas() {
+        int healthy = 0;
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                healthy++;
+            }
+        }
+        return healthy;
+    }
+
+    @PreDestroy
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.dataSource.close();
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final HikariDataSource dataSource;
+        private Counter reads;
+        private volatile boolean healthy = true;
+
+        Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        /**
+         * Whether {@code e} is a pool timeout while the pool's connections are all checked
+         * out, i.e. the replica is busy rather than unreachable. A pool that cannot open a
+         * connection times out with none active.
+         */
+        boolean isSaturated(SQLException e) {
+            if (!(e instanceof SQLTransientConnectionException)) {
+                return false;
+            }
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            return pool != null && pool.getActiveConnections() > 0;
+        }
+
+        void markDown(SQLException cause) {
+            if (healthy) {
+                healthy = false;
+                log.warn("Replica {} is down, reads fail over to the remaining databases", name, cause);
+            }
+        }
+
+        void markUp() {
+            if (!healthy) {
+                healthy = true;
+                log.info("Replica {} is back and takes reads again", name);
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Opt-in result cache for read-only templates, keyed by template id, template revision
+ * and the normalized bind values.
+ * <p>
+ * Each entry holds the shared {@code Mono} of its load, so concurrent identical
+ * requests subscribe to a single database call (single-flight) and a miss never
+ * fans out. Entries live for the template's TTL; the total estimated size is kept
+ * under {@code maxWeightBytes} by evicting the least recently used entries.
+ */
+@Component
+public class ResultCache {
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong totalWeight = new AtomicLong();
+    private final long maxWeightBytes;
+
+    public ResultCache(@Value("${query.result-cache.max-weight-bytes:67108864}") long maxWeightBytes) {
+        this.maxWeightBytes = maxWeightBytes;
+    }
+
+    /**
+     * Returns the cached result for this template and bind values, or runs {@code loader}
+     * once and shares its result. Templates that are not cacheable go straight to the loader.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> get(CompiledTemplate template, Object[] binds, Supplier<Mono<T>> loader, ToLongFunction<T> weigher) {
+        if (template == null || !template.isResultCacheable()) {
+            return Mono.defer(loader);
+        }
+        Key key = new Key(template.getTemplateId(), template.getRevision(), binds);
+        long now = System.nanoTime();
+
+        Entry existing = entries.get(key);
+        if (existing != null && !existing.isExpired(now)) {
+            existing.lastAccess = now;
+            return (Mono<T>) existing.value;
+        }
+
+        Entry fresh = new Entry(now + template.getCacheTtl().toNanos());
+        fresh.value = Mono.defer(loader)
+                .doOnNext(result -> admit(key, fresh, weigher.applyAsLong(result)))
+                .doOnError(error -> remove(key, fresh))
+                .cache();
+        Entry winner = entries.compute(key, (k, current) -> {
+            if (current != null && !current.isExpired(now)) {
+                return current;
+            }
+            if (current != null) {
+                totalWeight.addAndGet(-current.weight);
+            }
+            return fresh;
+        });
+        winner.lastAccess = now;
+        return (Mono<T>) winner.value;
+    }
+
+    /**
+     * Returns the cached (or loading) result for this template and bind values, or null
+     * when there is none; never starts a load.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> getIfPresent(CompiledTemplate template, Object[] binds) {
+        if (template == null || !template.isResultCacheable()) {
+            return null;
+        }
+        Key key = new Key(template.getTemplateId(), template.getRevision(), binds);
+        long now = System.nanoTime();
+        Entry existing = entries.get(key);
+        if (existing == null || existing.isExpired(now)) {
+            return null;
+        }
+        existing.lastAccess = now;
+        return (Mono<T>) existing.value;
+    }
+
+    /**
+     * Drops every cached result of the given templates, whatever their bind values.
+     */
+    public void invalidateTemplates(Collection<String> templateIds) {
+        entries.forEach((key, entry) -> {
+            if (templateIds.contains(key.templateId)) {
+                remove(key, entry);
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        entries.forEach(this::remove);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long weight() {
+        return totalWeight.get();
+    }
+
+    private void remove(Key key, Entry entry) {
+        if (entries.remove(key, entry)) {
+            totalWeight.addAndGet(-entry.weight);
+        }
+    }
+
+    private void admit(Key key, Entry entry, long weight) {
+        if (entries.get(key) != entry) {
+            return; // Invalidated or replaced while loading
+        }
+        entry.weight = weight;
+        if (totalWeight.addAndGet(weight) > maxWeightBytes) {
+            evict();
+        }
+    }
+
+    private synchronized void evict() {
+        if (totalWeight.get() <= maxWeightBytes) {
+            return;
+        }
+        long now = System.nanoTime();
+        List<Map.Entry<Key, Entry>> candidates = new ArrayList<>(entries.entrySet());
+        for (Map.Entry<Key, Entry> candidate : candidates) {
+            if (candidate.getValue().isExpired(now)) {
+                remove(candidate.getKey(), candidate.getValue());
+            }
+        }
+        candidates.sort((a, b) -> Long.compare(a.getValue().lastAccess, b.getValue().lastAccess));
+        for (Map.Entry<Key, Entry> candidate : candidates) {
+            if (totalWeight.get() <= maxWeightBytes) {
+                break;
+            }
+            remove(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    /**
+     * Rough heap footprint of a row list; only used to bound the cache, not to be exact.
+     */
+    public static long weighRows(List<? extends Map<String, Object>> rows) {
+        long weight = 16;
+        for (Map<String, Object> row : rows) {
+            weight += 32 + 8L * row.size();
+            for (Object value : row.values()) {
+                weight += weighValue(value);
+            }
+        }
+        return weight;
+    }
+
+    public static long weighValue(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CharSequence) {
+            return 40 + 2L * ((CharSequence) value).length();
+        }
+        if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        }
+        return 32;
+    }
+
+    private static Object normalize(Object value) {
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).stripTrailingZeros();
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return BigDecimal.valueOf(((Number) value).longValue()).stripTrailingZeros();
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return BigDecimal.valueOf(((Number) value).doubleValue()).stripTrailingZeros();
+        }
+        return value;
+    }
+
+    private static final class Key {
+        private final String templateId;
+        private final long revision;
+        private final Object[] binds;
+        private final int hash;
+
+        Key(String templateId, long revision, Object[] binds) {
+            this.templateId = templateId;
+            this.revision = revision;
+            this.binds = new Object[binds.length];
+            for (int i = 0; i < binds.length; i++) {
+                // 1, 1L and 1.0 bind identically, so they share an entry
+                this.binds[i] = normalize(binds[i]);
+            }
+            this.hash = Objects.hash(templateId, revision, Arrays.deepHashCode(this.binds));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return revision == other.revision && templateId.equals(other.templateId)
+                    && Arrays.deepEquals(binds, other.binds);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        private final long expiresAt;
+        private volatile Mono<?> value;
+        private volatile long weight;
+        private volatile long lastAccess;
+
+        Entry(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pull-based cursor over an open result set, used as the state of a
+ * {@code Flux.generate} so rows are only read when downstream asks for them.
+ * <p>
+ * The JDBC fetch size starts at the caller's value and grows (never beyond
+ * {@code maxFetchSize}) towards the demand observed from the subscriber, so a fast
+ * consumer needs fewer round trips while a slow one never forces a big prefetch.
+ */
+public final class ResultSetCursor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultSetCursor.class);
+
+    private final ResultSet resultSet;
+    private final RowLayout layout;
+    private final int maxFetchSize;
+    private final AtomicLong demand;
+    // Closed after the result set, in order; e.g. the statement and the connection
+    private final AutoCloseable[] owned;
+
+    private int fetchSize;
+    private int rowsInFetch;
+    private boolean closed;
+
+    public ResultSetCursor(ResultSet resultSet, RowLayout layout, int fetchSize, int maxFetchSize,
+                           AtomicLong demand, AutoCloseable... owned) {
+        this.resultSet = resultSet;
+        this.layout = layout;
+        this.fetchSize = Math.max(1, fetchSize);
+        this.maxFetchSize = Math.max(this.fetchSize, maxFetchSize);
+        this.demand = demand;
+        this.owned = owned;
+    }
+
+    /**
+     * Returns the next row, or {@code null} once the result set is exhausted.
+     */
+    public CompactRow next() throws SQLException {
+        if (rowsInFetch >= fetchSize) {
+            adaptFetchSize();
+            rowsInFetch = 0;
+        }
+        if (!resultSet.next()) {
+            return null;
+        }
+        rowsInFetch++;
+        return layout.readRow(resultSet);
+    }
+
+    private void adaptFetchSize() throws SQLException {
+        long requested = demand.get();
+        if (requested > fetchSize && fetchSize < maxFetchSize) {
+            fetchSize = (int) Math.min(maxFetchSize, Math.max(requested, (long) fetchSize * 2));
+            resultSet.setFetchSize(fetchSize);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closeQuietly(resultSet);
+        for (AutoCloseable resource : owned) {
+            closeQuietly(resource);
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        try {
+            resource.close();
+        } catch (Exception e) {
+            log.warn("Failed to close {}", resource, e);
+        }
+    }
+}
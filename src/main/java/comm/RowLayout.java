@@ -0,0 +1,106 @@
+package com.example.service;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Column names of a result set, resolved once and shared by every {@link CompactRow}
+ * read from it.
+ */
+public final class RowLayout {
+
+    private final String[] names;
+    // 1-based JDBC column index backing each name
+    private final int[] columns;
+    private final Map<String, Integer> slots;
+    private final int columnCount;
+
+    private RowLayout(String[] names, int[] columns, int columnCount) {
+        this.names = names;
+        this.columns = columns;
+        this.columnCount = columnCount;
+        this.slots = new HashMap<>(names.length * 4 / 3 + 1);
+        for (int i = 0; i < names.length; i++) {
+            slots.put(names[i], i);
+        }
+    }
+
+    /**
+     * Duplicate column names collapse to their last occurrence, the same result the
+     * old HashMap-per-row mapping produced.
+     */
+    public static RowLayout of(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        List<String> columnNames = new ArrayList<>(columnCount);
+        for (int i = 1; i <= columnCount; i++) {
+            columnNames.add(metaData.getColumnName(i));
+        }
+        return of(columnNames);
+    }
+
+    /**
+     * Same as {@link #of(ResultSetMetaData)} for drivers that only expose column names,
+     * such as R2DBC; {@code columnNames} are in column order.
+     */
+    public static RowLayout of(List<String> columnNames) {
+        Map<String, Integer> byName = new LinkedHashMap<>();
+        for (int i = 0; i < columnNames.size(); i++) {
+            byName.put(columnNames.get(i), i + 1);
+        }
+        String[] names = new String[byName.size()];
+        int[] columns = new int[byName.size()];
+        int slot = 0;
+        for (Map.Entry<String, Integer> entry : byName.entrySet()) {
+            names[slot] = entry.getKey();
+            columns[slot] = entry.getValue();
+            slot++;
+        }
+        return new RowLayout(names, columns, columnNames.size());
+    }
+
+    public CompactRow readRow(ResultSet resultSet) throws SQLException {
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = resultSet.getObject(columns[i]);
+        }
+        return new CompactRow(this, values);
+    }
+
+    /**
+     * Reads a row through {@code column}, which is given the 1-based column index.
+     */
+    public CompactRow readRow(IntFunction<Object> column) {
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = column.apply(columns[i]);
+        }
+        return new CompactRow(this, values);
+    }
+
+    /**
+     * Number of columns in the result set this layout was built from (before duplicates collapse).
+     */
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    String nameAt(int slot) {
+        return names[slot];
+    }
+
+    int slotOf(Object name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+}
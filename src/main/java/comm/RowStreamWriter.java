@@ -0,0 +1,154 @@
+package com.example.controller;
+
+import com.example.service.QueryMetrics;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Writes a row stream straight to the response as NDJSON or server-sent events.
+ * Rows are grouped into chunks of at most {@code chunkRows} rows, and a chunk is
+ * flushed when it is full or when a row arrives {@code flushInterval} or more after
+ * the chunk was started, whichever comes first. Rows are only pulled from the cursor
+ * while the client asks for more, so a client that is behind slows the query down
+ * instead of failing the stream. Nothing beyond one chunk is ever buffered, however
+ * large the result.
+ */
+@Component
+public class RowStreamWriter {
+
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SSE_DATA = "data:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SSE_END = "\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectWriter objectWriter;
+    private final int chunkRows;
+    private final Duration flushInterval;
+
+    public RowStreamWriter(ObjectMapper objectMapper,
+                           @Value("${query.stream.chunk-rows:500}") int chunkRows,
+                           @Value("${query.stream.flush-interval-ms:200}") long flushIntervalMillis) {
+        this.objectWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.chunkRows = chunkRows;
+        this.flushInterval = Duration.ofMillis(flushIntervalMillis);
+    }
+
+    public static boolean isEventStream(List<MediaType> accept) {
+        for (MediaType mediaType : accept) {
+            if (MediaType.TEXT_EVENT_STREAM.includes(mediaType)) {
+                return true;
+            }
+            if (MediaType.APPLICATION_NDJSON.includes(mediaType)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    public Mono<Void> write(Flux<? extends Map<String, Object>> rows, boolean eventStream, ServerHttpResponse response) {
+        return write(rows, eventStream, response, () -> null);
+    }
+
+    /**
+     * Same as {@link #write(Flux, boolean, ServerHttpResponse)}, also recording the number
+     * of bytes written into {@code meters} once the response ends.
+     */
+    public Mono<Void> write(Flux<? extends Map<String, Object>> rows, boolean eventStream, ServerHttpResponse response,
+                            QueryMetrics.PipelineMeters meters) {
+        return write(rows, eventStream, response, () -> meters);
+    }
+
+    /**
+     * Same as {@link #write(Flux, boolean, ServerHttpResponse, QueryMetrics.PipelineMeters)}
+     * with the meters looked up once the response ends, for targets that are only known to
+     * be valid after the rows were produced; no bytes are recorded if it returns null.
+     */
+    public Mono<Void> write(Flux<? extends Map<String, Object>> rows, boolean eventStream, ServerHttpResponse response,
+                            Supplier<QueryMetrics.PipelineMeters> meters) {
+        response.getHeaders().setContentType(eventStream ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON);
+        AtomicLong bytes = new AtomicLong();
+        // Cut on the rows themselves rather than on a timer: bufferTimeout emits on its timer
+        // whether or not the client has demand, and before Reactor 3.5.7 fails the stream then
+        Flux<Flux<DataBuffer>> chunks = Flux.defer(() -> rows.bufferUntil(new ChunkBoundary(chunkRows, flushInterval)))
+                .map(chunk -> {
+                    DataBuffer buffer = encode(chunk, eventStream, response);
+                    bytes.addAndGet(buffer.readableByteCount());
+                    return Flux.just(buffer);
+                });
+        return response.writeAndFlushWith(chunks).doFinally(signal -> {
+            QueryMetrics.PipelineMeters target = meters.get();
+            if (target != null) {
+                target.recordBytes(bytes.get());
+            }
+        });
+    }
+
+    /**
+     * Ends a chunk on its {@code maxRows}-th row, or on the first row that arrives once
+     * {@code maxAge} has passed since the chunk started. One instance per subscription.
+     */
+    private static final class ChunkBoundary implements Predicate<Object> {
+
+        private final int maxRows;
+        private final long maxAgeNanos;
+        private int rows;
+        private long startedAt;
+
+        ChunkBoundary(int maxRows, Duration maxAge) {
+            this.maxRows = maxRows;
+            this.maxAgeNanos = maxAge.toNanos();
+        }
+
+        @Override
+        public boolean test(Object row) {
+            long now = System.nanoTime();
+            if (rows++ == 0) {
+                startedAt = now;
+            }
+            if (rows >= maxRows || now - startedAt >= maxAgeNanos) {
+                rows = 0;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private DataBuffer encode(List<? extends Map<String, Object>> chunk, boolean eventStream, ServerHttpResponse response) {
+        DataBuffer buffer = response.bufferFactory().allocateBuffer();
+        try (OutputStream out = buffer.asOutputStream()) {
+            for (Map<String, Object> row : chunk) {
+                if (eventStream) {
+                    out.write(SSE_DATA);
+                    objectWriter.writeValue(out, row);
+                    out.write(SSE_END);
+                } else {
+                    objectWriter.writeValue(out, row);
+                    out.write(NEWLINE);
+                }
+            }
+            return buffer;
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One call captured by {@link SlowQueryLog}. Bind values are redacted unless the log
+ * was configured otherwise; the plan is filled in later, if it is captured at all.
+ */
+public final class SlowQuery {
+
+    private final Instant capturedAt;
+    private final String target;
+    private final String sqlId;
+    private final List<String> binds;
+    private final double totalMillis;
+    private final double acquireMillis;
+    private final double prepareMillis;
+    private final double executeMillis;
+    private final double fetchMillis;
+    private final long rows;
+    private volatile String plan;
+
+    SlowQuery(Instant capturedAt, String target, String sqlId, List<String> binds, long[] marks, long rows) {
+        this.capturedAt = capturedAt;
+        this.target = target;
+        this.sqlId = sqlId;
+        this.binds = binds;
+        this.totalMillis = millis(marks[0], marks[4]);
+        this.acquireMillis = millis(marks[0], marks[1]);
+        this.prepareMillis = millis(marks[1], marks[2]);
+        this.executeMillis = millis(marks[2], marks[3]);
+        this.fetchMillis = millis(marks[3], marks[4]);
+        this.rows = rows;
+    }
+
+    private static double millis(long from, long to) {
+        return to > from ? (to - from) / 1_000_000.0 : 0.0;
+    }
+
+    public Instant getCapturedAt() {
+        return capturedAt;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public String getSqlId() {
+        return sqlId;
+    }
+
+    public List<String> getBinds() {
+        return binds;
+    }
+
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public double getAcquireMillis() {
+        return acquireMillis;
+    }
+
+    public double getPrepareMillis() {
+        return prepareMillis;
+    }
+
+    public double getExecuteMillis() {
+        return executeMillis;
+    }
+
+    public double getFetchMillis() {
+        return fetchMillis;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public String getPlan() {
+        return plan;
+    }
+
+    void setPlan(String plan) {
+        this.plan = plan;
+    }
+}
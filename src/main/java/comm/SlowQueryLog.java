@@ -0,0 +1,227 @@
+package com.example.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory log of calls that ran longer than their template's threshold
+ * (db_template.slow_threshold_ms, else {@code query.slow-log.threshold-ms}).
+ * <p>
+ * Recording is rate-limited to {@code maxPerSecond} entries, and the optional
+ * DBMS_XPLAN plan capture to one every {@code planInterval}, so an incident that
+ * makes everything slow does not turn the log itself into extra load.
+ */
+@Component
+public class SlowQueryLog {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private static final String PLAN_SQL =
+            "SELECT plan_table_output FROM TABLE(DBMS_XPLAN.DISPLAY_CURSOR(?, NULL, 'TYPICAL'))";
+    private static final char[] SQL_ID_ALPHABET = "0123456789abcdfghjkmnpqrstuvwxyz".toCharArray();
+
+    private final HikariDataSource dataSource;
+    private final Duration defaultThreshold;
+    private final int capacity;
+    private final int maxPerSecond;
+    private final boolean redactBinds;
+    private final boolean capturePlans;
+    private final long planIntervalNanos;
+
+    private final Deque<SlowQuery> entries = new ArrayDeque<>();
+    private long windowStart;
+    private int recordedInWindow;
+    private final AtomicLong nextPlanAt = new AtomicLong(System.nanoTime());
+
+    public SlowQueryLog(HikariDataSource dataSource,
+                        @Value("${query.slow-log.threshold-ms:1000}") long thresholdMillis,
+                        @Value("${query.slow-log.capacity:100}") int capacity,
+                        @Value("${query.slow-log.max-per-second:20}") int maxPerSecond,
+                        @Value("${query.slow-log.redact-binds:true}") boolean redactBinds,
+                        @Value("${query.slow-log.capture-plan:false}") boolean capturePlans,
+                        @Value("${query.slow-log.plan-interval-ms:60000}") long planIntervalMillis) {
+        this.dataSource = dataSource;
+        this.defaultThreshold = Duration.ofMillis(thresholdMillis);
+        this.capacity = capacity;
+        this.maxPerSecond = maxPerSecond;
+        this.redactBinds = redactBinds;
+        this.capturePlans = capturePlans;
+        this.planIntervalNanos = Duration.ofMillis(planIntervalMillis).toNanos();
+    }
+
+    /**
+     * Records a template call if it was slow. {@code marks} are {@code System.nanoTime()}
+     * values at start, connection acquired, statement prepared, executed and fetch done;
+     * a stage that did not happen repeats the previous mark.
+     */
+    public void onTemplateCall(CompiledTemplate template, Object[] binds, long[] marks, long rows) {
+        Duration threshold = template.getSlowThreshold() != null ? template.getSlowThreshold() : defaultThreshold;
+        if (marks[4] - marks[0] < threshold.toNanos() || !acquirePermit()) {
+            return;
+        }
+        SlowQuery entry = new SlowQuery(Instant.now(), template.getTemplateId(), sqlId(oracleText(template.getSql())),
+                describe(binds), marks, rows);
+        add(entry);
+        if (capturePlans && acquirePlanPermit()) {
+            Schedulers.boundedElastic().schedule(() -> capturePlan(entry));
+        }
+    }
+
+    /**
+     * Same as {@link #onTemplateCall} for procedure calls, which always use the default
+     * threshold and have no plan to capture.
+     */
+    public void onProcedureCall(String procedure, Object[] binds, long[] marks, long rows) {
+        if (marks[4] - marks[0] < defaultThreshold.toNanos() || !acquirePermit()) {
+            return;
+        }
+        add(new SlowQuery(Instant.now(), procedure, null, describe(binds), marks, rows));
+    }
+
+    /**
+     * Captured calls, newest first.
+     */
+    public synchronized List<SlowQuery> entries() {
+        return new ArrayList<>(entries);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private synchronized void add(SlowQuery entry) {
+        if (entries.size() >= capacity) {
+            entries.removeLast();
+        }
+        entries.addFirst(entry);
+    }
+
+    private synchronized boolean acquirePermit() {
+        long now = System.nanoTime();
+        if (now - windowStart >= 1_000_000_000L) {
+            windowStart = now;
+            recordedInWindow = 0;
+        }
+        return recordedInWindow++ < maxPerSecond;
+    }
+
+    private boolean acquirePlanPermit() {
+        long now = System.nanoTime();
+        long next = nextPlanAt.get();
+        return now - next >= 0 && nextPlanAt.compareAndSet(next, now + planIntervalNanos);
+    }
+
+    private void capturePlan(SlowQuery entry) {
+        StringBuilder plan = new StringBuilder();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(PLAN_SQL)) {
+            statement.setString(1, entry.getSqlId());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+            }
+            entry.setPlan(plan.toString());
+        } catch (SQLException e) {
+            log.warn("Failed to capture plan for sql_id {}", entry.getSqlId(), e);
+        }
+    }
+
+    private List<String> describe(Object[] binds) {
+        if (binds == null) {
+            return Collections.emptyList();
+        }
+        List<String> described = new ArrayList<>(binds.length);
+        for (Object bind : binds) {
+            if (bind == null) {
+                described.add("NULL");
+            } else if (!redactBinds) {
+                described.add(String.valueOf(bind));
+            } else if (bind instanceof CharSequence) {
+                // Length is enough to spot a pathological value without leaking it
+                described.add(bind.getClass().getSimpleName() + "(" + ((CharSequence) bind).length() + ")");
+            } else {
+                described.add(bind.getClass().getSimpleName());
+            }
+        }
+        return described;
+    }
+
+    /**
+     * The statement text as the Oracle driver sends it: each {@code ?} outside literals
+     * and comments becomes {@code :1}, {@code :2}, ...
+     */
+    static String oracleText(String sql) {
+        StringBuilder text = new StringBuilder(sql.length() + 16);
+        int marker = 0;
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            int end = i + 1;
+            if (c == '\'' || c == '"') {
+                end = sql.indexOf(c, i + 1);
+                end = end < 0 ? sql.length() : end + 1;
+            } else if (sql.startsWith("--", i)) {
+                end = sql.indexOf('\n', i);
+                end = end < 0 ? sql.length() : end;
+            } else if (sql.startsWith("/*", i)) {
+                end = sql.indexOf("*/", i + 2);
+                end = end < 0 ? sql.length() : end + 2;
+            } else if (c == '?') {
+                text.append(':').append(++marker);
+                i++;
+                continue;
+            }
+            text.append(sql, i, end);
+            i = end;
+        }
+        return text.toString();
+    }
+
+    /**
+     * Oracle's SQL_ID of a statement text: the last 64 bits of MD5(text + NUL), in base 32.
+     */
+    static String sqlId(String text) {
+        byte[] digest;
+        try {
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            md5.update(text.getBytes(StandardCharsets.UTF_8));
+            md5.update((byte) 0);
+            digest = md5.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        long value = (littleEndianInt(digest, 8) << 32) | littleEndianInt(digest, 12);
+        char[] id = new char[13];
+        for (int i = 12; i >= 0; i--) {
+            id[i] = SQL_ID_ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(id);
+    }
+
+    private static long littleEndianInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFFL) | (bytes[offset + 1] & 0xFFL) << 8
+                | (bytes[offset + 2] & 0xFFL) << 16 | (bytes[offset + 3] & 0xFFL) << 24;
+    }
+}
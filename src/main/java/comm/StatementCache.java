@@ -0,0 +1,107 @@
+package com.example.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import oracle.jdbc.OracleConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-connection PreparedStatement cache keyed by template id, built on the Oracle
+ * driver's explicit statement cache (LRU, one cache per physical connection).
+ * <p>
+ * Keys carry the template revision, so a template changed by a refresh misses and
+ * is re-prepared while its stale statement ages out of the LRU.
+ */
+@Component
+public class StatementCache {
+
+    private final int cacheSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public StatementCache(@Value("${query.statement-cache.size:100}") int cacheSize, MeterRegistry meterRegistry) {
+        this.cacheSize = cacheSize;
+        FunctionCounter.builder("query.statement.cache", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .description("Statement cache lookups")
+                .register(meterRegistry);
+        FunctionCounter.builder("query.statement.cache", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .description("Statement cache lookups")
+                .register(meterRegistry);
+    }
+
+    public CachedStatement<PreparedStatement> prepare(Connection connection, CompiledTemplate template) throws SQLException {
+        OracleConnection oracleConnection = enableCaching(connection);
+        String key = keyOf(template);
+        PreparedStatement statement = oracleConnection.getStatementWithKey(key);
+        if (statement != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            statement = oracleConnection.prepareStatement(template.getSql());
+        }
+        return new CachedStatement<>(statement, key);
+    }
+
+    /**
+     * Same as {@link #prepare} for the coalesced form of a batchable template.
+     */
+    public CachedStatement<PreparedStatement> prepareBatch(Connection connection, CompiledTemplate template)
+            throws SQLException {
+        OracleConnection oracleConnection = enableCaching(connection);
+        String key = keyOf(template) + "#batch";
+        PreparedStatement statement = oracleConnection.getStatementWithKey(key);
+        if (statement != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            statement = oracleConnection.prepareStatement(template.getBatchSql());
+        }
+        return new CachedStatement<>(statement, key);
+    }
+
+    /**
+     * Same as {@link #prepare} for procedure calls, keyed by the call string itself.
+     */
+    public CachedStatement<CallableStatement> prepareCall(Connection connection, String call) throws SQLException {
+        OracleConnection oracleConnection = enableCaching(connection);
+        CallableStatement statement = oracleConnection.getCallWithKey(call);
+        if (statement != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            statement = oracleConnection.prepareCall(call);
+        }
+        return new CachedStatement<>(statement, call);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private OracleConnection enableCaching(Connection connection) throws SQLException {
+        // Statements are prepared on the physical connection so the pool does not close them on return
+        OracleConnection oracleConnection = connection.unwrap(OracleConnection.class);
+        if (!oracleConnection.getExplicitCachingEnabled()) {
+            oracleConnection.setStatementCacheSize(cacheSize);
+            oracleConnection.setExplicitCachingEnabled(true);
+        }
+        return oracleConnection;
+    }
+
+    private static String keyOf(CompiledTemplate template) {
+        return template.getTemplateId() + "@" + template.getRevision();
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.service;
+
+public enum StatementKind {
+    QUERY,
+    DML,
+    CALL
+}
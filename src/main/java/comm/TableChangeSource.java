@@ -0,0 +1,36 @@
+package com.example.service;
+
+import java.util.Set;
+
+/**
+ * Pluggable feed of table modifications used to evict cached results. Table names
+ * passed around are normalized with {@link TemplateCompiler#tableKey(String)}, so they
+ * carry their schema whenever the template or the change names one.
+ */
+public interface TableChangeSource extends AutoCloseable {
+
+    /**
+     * Starts delivering changes to {@code listener}. Returns false if the source is not
+     * usable in this environment, so the next one can be tried.
+     */
+    boolean start(Listener listener);
+
+    /**
+     * Tells the source which tables cached templates currently read from. Sources that
+     * see every change anyway may ignore it.
+     */
+    void watch(Set<String> tables);
+
+    @Override
+    void close();
+
+    interface Listener {
+
+        void tablesChanged(Set<String> tables);
+
+        /**
+         * The source lost track of changes (restart, deregistration, ...); nothing cached can be trusted.
+         */
+        void everythingChanged();
+    }
+}
@@ -0,0 +1,346 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns raw db_template SQL into a {@link CompiledTemplate}. Runs at load/refresh
+ * time only, never on the request path.
+ */
+public class TemplateCompiler {
+
+    // Words that can follow a table reference and therefore are never its alias
+    private static final Set<String> CLAUSE_KEYWORDS = new HashSet<>(Arrays.asList(
+            "WHERE", "JOIN", "INNER", "LEFT", "RIGHT", "FULL", "OUTER", "CROSS", "NATURAL", "ON", "USING",
+            "GROUP", "ORDER", "HAVING", "UNION", "MINUS", "INTERSECT", "CONNECT", "START", "FETCH", "OFFSET",
+            "FOR", "PARTITION", "SAMPLE", "PIVOT", "UNPIVOT", "MODEL", "WINDOW", "AS"));
+
+    public static CompiledTemplate compile(String templateId, String query, long revision) {
+        return compile(templateId, TemplateDefinition.of(query), revision);
+    }
+
+    public static CompiledTemplate compile(String templateId, TemplateDefinition definition, long revision) {
+        String query = definition.getQuery();
+        if (query == null) {
+            throw new IllegalArgumentException("Template " + templateId + " has no query_string");
+        }
+        String trimmed = query.trim();
+        StatementKind kind = detectKind(trimmed);
+        if (kind != StatementKind.CALL && trimmed.endsWith(";")) {
+            // A trailing ';' is valid in SQL*Plus but rejected by JDBC; PL/SQL blocks need theirs
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+
+        StringBuilder sql = new StringBuilder(trimmed.length());
+        List<String> names = new ArrayList<>();
+        // Offset of the last bind marker in the compiled SQL
+        int lastMarker = -1;
+        int length = trimmed.length();
+        int i = 0;
+        while (i < length) {
+            char c = trimmed.charAt(i);
+            if (c == '\'' || c == '"') {
+                int end = skipQuoted(trimmed, i, c);
+                sql.append(trimmed, i, end);
+                i = end;
+            } else if (c == '-' && i + 1 < length && trimmed.charAt(i + 1) == '-') {
+                int end = trimmed.indexOf('\n', i);
+                end = end < 0 ? length : end;
+                sql.append(trimmed, i, end);
+                i = end;
+            } else if (c == '/' && i + 1 < length && trimmed.charAt(i + 1) == '*') {
+                int end = trimmed.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+                sql.append(trimmed, i, end);
+                i = end;
+            } else if (c == '?') {
+                names.add(null);
+                lastMarker = sql.length();
+                sql.append('?');
+                i++;
+            } else if (c == ':' && i + 1 < length && Character.isLetter(trimmed.charAt(i + 1))
+                    && (i == 0 || trimmed.charAt(i - 1) != ':')) {
+                int end = i + 1;
+                while (end < length && isIdentifierPart(trimmed.charAt(end))) {
+                    end++;
+                }
+                names.add(trimmed.substring(i + 1, end));
+                lastMarker = sql.length();
+                sql.append('?');
+                i = end;
+            } else {
+                sql.append(c);
+                i++;
+            }
+        }
+
+        Map<String, int[]> positions = new HashMap<>();
+        for (int p = 0; p < names.size(); p++) {
+            String name = names.get(p);
+            if (name != null) {
+                int[] existing = positions.get(name);
+                int[] updated = existing == null ? new int[1] : Arrays.copyOf(existing, existing.length + 1);
+                updated[updated.length - 1] = p + 1;
+                positions.put(name, updated);
+            }
+        }
+
+        Set<String> tables = kind == StatementKind.QUERY ? referencedTables(trimmed) : Collections.emptySet();
+        String batchSql = null;
+        String batchKey = null;
+        if (definition.getBatchKey() != null && kind == StatementKind.QUERY && names.size() == 1) {
+            batchSql = batchSql(sql.toString(), lastMarker);
+            batchKey = batchSql == null ? null : columnKey(definition.getBatchKey());
+        }
+        return new CompiledTemplate(templateId, query, sql.toString(), kind, names, positions, revision,
+                definition.isReadOnly(), definition.getCacheTtl(), definition.getSlowThreshold(), tables,
+                batchSql, batchKey, definition);
+    }
+
+    /**
+     * Rewrites {@code col = ?} into {@code col IN (SELECT COLUMN_VALUE FROM TABLE(?))}, so
+     * one execution with a collection bind answers many single-key lookups. Returns null
+     * when the only marker is not the right-hand side of an equality.
+     */
+    static String batchSql(String sql, int marker) {
+        int operator = marker - 1;
+        while (operator >= 0 && Character.isWhitespace(sql.charAt(operator))) {
+            operator--;
+        }
+        if (operator < 1 || sql.charAt(operator) != '=' || "<>!".indexOf(sql.charAt(operator - 1)) >= 0) {
+            return null;
+        }
+        return sql.substring(0, operator) + "IN (SELECT COLUMN_VALUE FROM TABLE(?))" + sql.substring(marker + 1);
+    }
+
+    // Result column names come back upper-case unless the column was quoted
+    private static String columnKey(String column) {
+        String name = column.trim();
+        if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+            return name.substring(1, name.length() - 1);
+        }
+        return name.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Table names read by a query, taken from its FROM and JOIN clauses and normalized
+     * with {@link #tableKey(String)}. Errs on the side of listing too much: a CTE name
+     * or the operand of {@code EXTRACT(... FROM x)} shows up as a table as well.
+     */
+    static Set<String> referencedTables(String sql) {
+        List<String> tokens = tokenize(sql);
+        Set<String> tables = new LinkedHashSet<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            String keyword = tokens.get(i).toUpperCase(Locale.ROOT);
+            if (!keyword.equals("FROM") && !keyword.equals("JOIN")) {
+                continue;
+            }
+            int j = i + 1;
+            while (j < tokens.size() && isName(tokens.get(j))) {
+                if (j + 1 < tokens.size() && tokens.get(j + 1).equals("(")) {
+                    break; // TABLE(...) or another table function, not a table
+                }
+                String table = tableKey(tokens.get(j));
+                if (!unqualifiedTableKey(table).equals("DUAL")) {
+                    tables.add(table);
+                }
+                int next = j + 1;
+                if (next < tokens.size() && tokens.get(next).equalsIgnoreCase("AS")) {
+                    next++;
+                }
+                if (next < tokens.size() && isName(tokens.get(next))
+                        && !CLAUSE_KEYWORDS.contains(tokens.get(next).toUpperCase(Locale.ROOT))) {
+                    next++; // Alias
+                }
+                if (next < tokens.size() && tokens.get(next).equals(",")) {
+                    j = next + 1; // Old-style comma join
+                } else {
+                    break;
+                }
+            }
+        }
+        return Collections.unmodifiableSet(tables);
+    }
+
+    /**
+     * Normalizes a table reference for matching against change notifications: any
+     * database link is dropped, unquoted names are upper-cased and the schema is kept,
+     * so {@code hr.emp} becomes {@code HR.EMP} and never matches {@code SCOTT.EMP}. An
+     * unqualified name stays unqualified and stands for a table of the session's schema.
+     */
+    static String tableKey(String name) {
+        String table = name;
+        int at = table.indexOf('@');
+        if (at >= 0 && table.indexOf('"') < 0) {
+            table = table.substring(0, at);
+        }
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        boolean quoted = false;
+        for (int i = 0; i < table.length(); i++) {
+            char c = table.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == '.' && !quoted) {
+                parts.add(identifierKey(table.substring(start, i)));
+                start = i + 1;
+            }
+        }
+        parts.add(identifierKey(table.substring(start)));
+        String object = parts.get(parts.size() - 1);
+        return parts.size() < 2 ? object : parts.get(parts.size() - 2) + '.' + object;
+    }
+
+    /**
+     * The table part of a {@link #tableKey(String)}, without its schema.
+     */
+    static String unqualifiedTableKey(String key) {
+        int dot = key.indexOf('.');
+        return dot < 0 ? key : key.substring(dot + 1);
+    }
+
+    /**
+     * A {@link #tableKey(String)} written back as a quoted SQL name, e.g. {@code "HR"."EMP"}.
+     */
+    static String quotedTableName(String key) {
+        int dot = key.indexOf('.');
+        if (dot < 0) {
+            return '"' + key + '"';
+        }
+        return '"' + key.substring(0, dot) + "\".\"" + key.substring(dot + 1) + '"';
+    }
+
+    private static String identifierKey(String identifier) {
+        String name = identifier.trim();
+        if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+            return name.substring(1, name.length() - 1);
+        }
+        return name.toUpperCase(Locale.ROOT);
+    }
+
+    // Splits SQL into identifiers (schema-qualified ones kept whole), '(' ')' ',' and other
+    // single characters; literals, bind markers and comments are dropped
+    private static List<String> tokenize(String sql) {
+        List<String> tokens = new ArrayList<>();
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '\'') {
+                i = skipQuoted(sql, i, c);
+            } else if (sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == ':' && i + 1 < length && Character.isLetter(sql.charAt(i + 1))) {
+                i++;
+                while (i < length && isIdentifierPart(sql.charAt(i))) {
+                    i++;
+                }
+            } else if (c == '"' || Character.isLetter(c)) {
+                int start = i;
+                i = skipIdentifier(sql, i);
+                while (i < length && (sql.charAt(i) == '.' || sql.charAt(i) == '@') && i + 1 < length
+                        && (sql.charAt(i + 1) == '"' || Character.isLetter(sql.charAt(i + 1)))) {
+                    i = skipIdentifier(sql, i + 1);
+                }
+                tokens.add(sql.substring(start, i));
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static int skipIdentifier(String sql, int start) {
+        if (sql.charAt(start) == '"') {
+            return skipQuoted(sql, start, '"');
+        }
+        int i = start;
+        while (i < sql.length() && isIdentifierPart(sql.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isName(String token) {
+        char first = token.charAt(0);
+        return first == '"' || Character.isLetter(first);
+    }
+
+    static StatementKind detectKind(String sql) {
+        String keyword = firstKeyword(sql);
+        switch (keyword) {
+            case "SELECT":
+            case "WITH":
+                return StatementKind.QUERY;
+            case "{":
+            case "CALL":
+            case "BEGIN":
+            case "DECLARE":
+                return StatementKind.CALL;
+            default:
+                return StatementKind.DML;
+        }
+    }
+
+    private static String firstKeyword(String sql) {
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c) || c == '(') {
+                i++;
+            } else if (sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else {
+                break;
+            }
+        }
+        if (i < length && sql.charAt(i) == '{') {
+            return "{";
+        }
+        int start = i;
+        while (i < length && Character.isLetter(sql.charAt(i))) {
+            i++;
+        }
+        return sql.substring(start, i).toUpperCase(Locale.ROOT);
+    }
+
+    private static int skipQuoted(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == quote) {
+                // A doubled quote is an escaped quote, not the end of the literal
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return sql.length();
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#';
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.service;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * One db_template row as loaded from the database, before compilation.
+ */
+public final class TemplateDefinition {
+
+    private final String query;
+    private final boolean readOnly;
+    // How long results may be served from the result cache; null disables caching
+    private final Duration cacheTtl;
+    // Calls slower than this go to the slow-query log; null uses the global threshold
+    private final Duration slowThreshold;
+    // Result column holding the lookup key of a batchable single-key query; null if not batchable
+    private final String batchKey;
+
+    public TemplateDefinition(String query, boolean readOnly, Duration cacheTtl) {
+        this(query, readOnly, cacheTtl, null);
+    }
+
+    public TemplateDefinition(String query, boolean readOnly, Duration cacheTtl, Duration slowThreshold) {
+        this(query, readOnly, cacheTtl, slowThreshold, null);
+    }
+
+    public TemplateDefinition(String query, boolean readOnly, Duration cacheTtl, Duration slowThreshold,
+                              String batchKey) {
+        this.query = query;
+        this.readOnly = readOnly;
+        this.cacheTtl = cacheTtl;
+        this.slowThreshold = slowThreshold;
+        this.batchKey = batchKey;
+    }
+
+    public static TemplateDefinition of(String query) {
+        return new TemplateDefinition(query, false, null);
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public Duration getCacheTtl() {
+        return cacheTtl;
+    }
+
+    public Duration getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    public String getBatchKey() {
+        return batchKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TemplateDefinition)) {
+            return false;
+        }
+        TemplateDefinition that = (TemplateDefinition) o;
+        return readOnly == that.readOnly
+                && Objects.equals(query, that.query)
+                && Objects.equals(cacheTtl, that.cacheTtl)
+                && Objects.equals(slowThreshold, that.slowThreshold)
+                && Objects.equals(batchKey, that.batchKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(query, readOnly, cacheTtl, slowThreshold, batchKey);
+    }
+}
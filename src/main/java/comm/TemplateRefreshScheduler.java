@@ -0,0 +1,26 @@
+package com.example.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Background poller that keeps the template snapshot in sync with db_template
+ * using delta refreshes.
+ */
+@Component
+@ConditionalOnProperty(name = "query.template.delta-refresh.enabled", havingValue = "true", matchIfMissing = true)
+public class TemplateRefreshScheduler {
+
+    private final QueryExecutionService queryExecutionService;
+
+    public TemplateRefreshScheduler(QueryExecutionService queryExecutionService) {
+        this.queryExecutionService = queryExecutionService;
+    }
+
+    @Scheduled(initialDelayString = "${query.template.delta-refresh.interval-ms:30000}",
+               fixedDelayString = "${query.template.delta-refresh.interval-ms:30000}")
+    public void refreshTemplates() {
+        queryExecutionService.refreshQueryCacheDelta();
+    }
+}
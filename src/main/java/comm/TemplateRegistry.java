@@ -0,0 +1,72 @@
+package com.example.service;
+
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link TemplateSnapshot}. Readers only ever do a volatile read,
+ * so request threads never block on (or observe half of) a refresh.
+ */
+@Component
+public class TemplateRegistry {
+
+    private final AtomicReference<TemplateSnapshot> current = new AtomicReference<>(TemplateSnapshot.empty());
+    private final AtomicLong revisions = new AtomicLong();
+
+    public TemplateSnapshot current() {
+        return current.get();
+    }
+
+    public CompiledTemplate getTemplate(String templateId) {
+        return current.get().get(templateId);
+    }
+
+    public String getQuery(String templateId) {
+        CompiledTemplate template = current.get().get(templateId);
+        return template == null ? null : template.getOriginalSql();
+    }
+
+    /**
+     * Compiles a fully loaded template map and publishes it as the next snapshot in one atomic swap.
+     * Templates whose definition did not change keep their compilation and revision.
+     */
+    public TemplateSnapshot publish(Map<String, TemplateDefinition> definitions, Timestamp highWaterMark) {
+        return current.updateAndGet(previous ->
+                TemplateSnapshot.next(previous, compileAll(previous, definitions), highWaterMark));
+    }
+
+    /**
+     * Compiles only the changed templates and merges them into the live snapshot, again as a single swap.
+     * A row re-read with the definition the live template was compiled from keeps that template.
+     */
+    public TemplateSnapshot apply(Map<String, TemplateDefinition> changed, Collection<String> deleted,
+                                  Timestamp highWaterMark) {
+        return current.updateAndGet(previous ->
+                TemplateSnapshot.merge(previous, compileAll(previous, changed), deleted, highWaterMark));
+    }
+
+    private Map<String, CompiledTemplate> compileAll(TemplateSnapshot previous,
+                                                     Map<String, TemplateDefinition> definitions) {
+        Map<String, CompiledTemplate> templates = new HashMap<>(definitions.size() * 4 / 3 + 1);
+        for (Map.Entry<String, TemplateDefinition> entry : definitions.entrySet()) {
+            if (entry.getValue().getQuery() == null) {
+                continue; // Nothing to execute; the template reads as missing
+            }
+            CompiledTemplate existing = previous.get(entry.getKey());
+            if (existing != null && entry.getValue().equals(existing.getDefinition())) {
+                // Same revision, so its cached statements and results stay valid
+                templates.put(entry.getKey(), existing);
+                continue;
+            }
+            templates.put(entry.getKey(),
+                    TemplateCompiler.compile(entry.getKey(), entry.getValue(), revisions.incrementAndGet()));
+        }
+        return templates;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable, versioned view of db_template. A snapshot is never modified once
+ * published; a refresh builds a new one and swaps it in through {@link TemplateRegistry}.
+ */
+public final class TemplateSnapshot {
+
+    private static final TemplateSnapshot EMPTY =
+            new TemplateSnapshot(0L, Collections.emptyMap(), Collections.emptyMap(), Instant.EPOCH, null);
+
+    private final long version;
+    private final Map<String, CompiledTemplate> templates;
+    // Raw query strings, kept alongside the compiled form for getAllQueries()
+    private final Map<String, String> queries;
+    private final Instant loadedAt;
+    // Highest db_template.last_modified seen so far; null until a full load has run
+    private final Timestamp highWaterMark;
+
+    private TemplateSnapshot(long version, Map<String, CompiledTemplate> templates, Map<String, String> queries,
+                             Instant loadedAt, Timestamp highWaterMark) {
+        this.version = version;
+        this.templates = templates;
+        this.queries = queries;
+        this.loadedAt = loadedAt;
+        this.highWaterMark = highWaterMark;
+    }
+
+    public static TemplateSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds the successor of {@code previous}. The given map is copied, so the
+     * caller may keep mutating its own instance afterwards. Returns {@code previous}
+     * itself when it already holds exactly these templates and high-water mark.
+     */
+    static TemplateSnapshot next(TemplateSnapshot previous, Map<String, CompiledTemplate> templates,
+                                 Timestamp highWaterMark) {
+        if (sameTemplates(previous.templates, templates) && Objects.equals(previous.highWaterMark, highWaterMark)) {
+            return previous;
+        }
+        Map<String, CompiledTemplate> copy = new HashMap<>(templates);
+        return new TemplateSnapshot(previous.version + 1, Collections.unmodifiableMap(copy),
+                queriesOf(copy), Instant.now(), highWaterMark);
+    }
+
+    /**
+     * Builds the successor of {@code previous} by applying a delta on top of it.
+     * Templates {@code previous} already holds and deletions of ids it does not have are
+     * no change; returns {@code previous} itself when the delta changes nothing.
+     */
+    static TemplateSnapshot merge(TemplateSnapshot previous, Map<String, CompiledTemplate> changed,
+                                  Collection<String> deleted, Timestamp highWaterMark) {
+        Timestamp mark = later(previous.highWaterMark, highWaterMark);
+        Map<String, CompiledTemplate> updates = new HashMap<>();
+        changed.forEach((templateId, template) -> {
+            if (previous.templates.get(templateId) != template) {
+                updates.put(templateId, template);
+            }
+        });
+        boolean removes = false;
+        for (String templateId : deleted) {
+            removes |= previous.templates.containsKey(templateId);
+        }
+        if (updates.isEmpty() && !removes && mark == previous.highWaterMark) {
+            return previous;
+        }
+        Map<String, CompiledTemplate> templates = new HashMap<>(previous.templates);
+        templates.putAll(updates);
+        templates.keySet().removeAll(deleted);
+        return new TemplateSnapshot(previous.version + 1, Collections.unmodifiableMap(templates),
+                queriesOf(templates), Instant.now(), mark);
+    }
+
+    private static boolean sameTemplates(Map<String, CompiledTemplate> a, Map<String, CompiledTemplate> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (Map.Entry<String, CompiledTemplate> entry : b.entrySet()) {
+            if (a.get(entry.getKey()) != entry.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ids of templates added, removed or recompiled since {@code older}; the ones whose
+     * cached statements and results no longer apply.
+     */
+    public Set<String> changedSince(TemplateSnapshot older) {
+        Set<String> changed = new HashSet<>();
+        templates.forEach((templateId, template) -> {
+            if (older.templates.get(templateId) != template) {
+                changed.add(templateId);
+            }
+        });
+        for (String templateId : older.templates.keySet()) {
+            if (!templates.containsKey(templateId)) {
+                changed.add(templateId);
+            }
+        }
+        return changed;
+    }
+
+    private static Map<String, String> queriesOf(Map<String, CompiledTemplate> templates) {
+        Map<String, String> queries = new HashMap<>(templates.size() * 4 / 3 + 1);
+        for (CompiledTemplate template : templates.values()) {
+            queries.put(template.getTemplateId(), template.getOriginalSql());
+        }
+        return Collections.unmodifiableMap(queries);
+    }
+
+    private static Timestamp later(Timestamp a, Timestamp b) {
+        if (a == null) {
+            return b;
+        }
+        return b != null && b.after(a) ? b : a;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public Timestamp getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public CompiledTemplate get(String templateId) {
+        return templates.get(templateId);
+    }
+
+    public Map<String, CompiledTemplate> getTemplates() {
+        return templates;
+    }
+
+    /**
+     * Read-only view of every raw query string; safe to hand out without copying.
+     */
+    public Map<String, String> getQueries() {
+        return queries;
+    }
+
+    public int size() {
+        return templates.size();
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.service;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import reactor.core.publisher.Mono;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Polling of {@link ChangeLogPollingSource} against an embedded H2 change-log table, and
+ * the evictions {@link CacheInvalidator} derives from it.
+ */
+class ChangeLogPollingSourceTest {
+
+    private static final String URL = "jdbc:h2:mem:change_log;DB_CLOSE_DELAY=-1";
+    private static final Duration TTL = Duration.ofMinutes(5);
+    private static final Object[] NO_BINDS = new Object[0];
+
+    private HikariDataSource dataSource;
+    private ChangeLogPollingSource source;
+
+    @BeforeEach
+    void createChangeLog() throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(URL);
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(4);
+        dataSource = new HikariDataSource(config);
+        try (Connection connection = dataSource.getConnection();
+             Statement setup = connection.createStatement()) {
+            setup.execute("DROP TABLE IF EXISTS query_change_log");
+            setup.execute("CREATE TABLE query_change_log (change_id BIGINT PRIMARY KEY, table_name VARCHAR(128))");
+        }
+    }
+
+    @AfterEach
+    void close() {
+        if (source != null) {
+            source.close();
+        }
+        dataSource.close();
+    }
+
+    private ChangeLogPollingSource source(long overlapIds, TableChangeSource.Listener listener, String... watched) {
+        source = new ChangeLogPollingSource(dataSource, "query_change_log", overlapIds);
+        assertThat(source.start(listener)).isTrue();
+        source.watch(new HashSet<>(Arrays.asList(watched)));
+        return source;
+    }
+
+    private void commit(long changeId, String table) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            insert(connection, changeId, table);
+        }
+    }
+
+    // Inserts without committing, like a trigger in a transaction that is still open
+    private Connection pending(long changeId, String table) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        connection.setAutoCommit(false);
+        insert(connection, changeId, table);
+        return connection;
+    }
+
+    private static void insert(Connection connection, long changeId, String table) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO query_change_log (change_id, table_name) VALUES (?, ?)")) {
+            statement.setLong(1, changeId);
+            statement.setString(2, table);
+            statement.executeUpdate();
+        }
+    }
+
+    @Test
+    void historyBeforeStartIsNotReported() throws SQLException {
+        commit(1, "orders");
+        commit(2, "customers");
+        Recorder recorder = new Recorder();
+        source(10, recorder, "ORDERS", "CUSTOMERS");
+
+        source.poll();
+
+        assertThat(recorder.batches).isEmpty();
+    }
+
+    @Test
+    void entryCommittedAfterHigherIdsIsReportedOnce() throws SQLException {
+        Recorder recorder = new Recorder();
+        source(10, recorder, "ORDERS", "CUSTOMERS", "ITEMS");
+
+        try (Connection late = pending(1, "customers")) {
+            commit(2, "orders");
+            commit(3, "items");
+            source.poll();
+            assertThat(recorder.batches).containsExactly(set("ORDERS", "ITEMS"));
+
+            late.commit();
+        }
+        source.poll();
+        source.poll();
+
+        assertThat(recorder.batches).containsExactly(set("ORDERS", "ITEMS"), set("CUSTOMERS"));
+    }
+
+    @Test
+    void entryCommittedBeyondTheOverlapIsMissed() throws SQLException {
+        Recorder recorder = new Recorder();
+        source(2, recorder, "ORDERS", "CUSTOMERS");
+
+        try (Connection late = pending(1, "customers")) {
+            commit(5, "orders");
+            source.poll();
+            late.commit();
+        }
+        source.poll();
+
+        assertThat(recorder.batches).containsExactly(set("ORDERS"));
+    }
+
+    @Test
+    void onlyWatchedTablesAreReportedAndQualifiedNamesAlsoMatchUnqualifiedOnes() throws SQLException {
+        Recorder recorder = new Recorder();
+        source(10, recorder, "EMP", "HR.DEPT");
+
+        commit(1, "audit_trail");
+        source.poll();
+        commit(2, "hr.emp");
+        commit(3, "hr.dept");
+        source.poll();
+
+        assertThat(recorder.batches).containsExactly(set("EMP", "HR.DEPT"));
+    }
+
+    @Test
+    void tablesChangedEvictsTheTemplatesReadingThem() throws SQLException {
+        Map<String, TemplateDefinition> definitions = new HashMap<>();
+        definitions.put("orders", new TemplateDefinition("SELECT * FROM orders", true, TTL));
+        definitions.put("orderLines", new TemplateDefinition(
+                "SELECT * FROM orders o JOIN order_line l ON l.order_id = o.id", true, TTL));
+        definitions.put("employees", new TemplateDefinition("SELECT * FROM emp", true, TTL));
+        definitions.put("customers", new TemplateDefinition("SELECT * FROM customers", true, TTL));
+        TemplateRegistry templateRegistry = new TemplateRegistry();
+        templateRegistry.publish(definitions, null);
+        ResultCache resultCache = new ResultCache(1 << 20);
+        for (String templateId : definitions.keySet()) {
+            resultCache.get(templateRegistry.getTemplate(templateId), NO_BINDS,
+                    () -> Mono.just(Collections.<Map<String, Object>>emptyList()), ResultCache::weighRows).block();
+        }
+
+        source = new ChangeLogPollingSource(dataSource, "query_change_log", 10);
+        CacheInvalidator invalidator = new CacheInvalidator(templateRegistry, resultCache,
+                new StaticListableBeanFactory(Collections.singletonMap("changeLog", source))
+                        .getBeanProvider(TableChangeSource.class));
+        invalidator.start();
+        invalidator.templatesChanged();
+
+        commit(1, "orders");
+        commit(2, "hr.emp");
+        commit(3, "invoices");
+        source.poll();
+
+        assertThat(cached(resultCache, templateRegistry, "orders")).isFalse();
+        assertThat(cached(resultCache, templateRegistry, "orderLines")).isFalse();
+        assertThat(cached(resultCache, templateRegistry, "employees")).isFalse();
+        assertThat(cached(resultCache, templateRegistry, "customers")).isTrue();
+        assertThat(resultCache.size()).isEqualTo(1);
+        invalidator.stop();
+    }
+
+    private static boolean cached(ResultCache resultCache, TemplateRegistry templateRegistry, String templateId) {
+        return resultCache.getIfPresent(templateRegistry.getTemplate(templateId), NO_BINDS) != null;
+    }
+
+    private static Set<String> set(String... tables) {
+        return new HashSet<>(Arrays.asList(tables));
+    }
+
+    private static final class Recorder implements TableChangeSource.Listener {
+        private final List<Set<String>> batches = new ArrayList<>();
+
+        @Override
+        public void tablesChanged(Set<String> tables) {
+            batches.add(tables);
+        }
+
+        @Override
+        public void everythingChanged() {
+            batches.add(Collections.singleton("*"));
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.service;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Throughput and memory per in-flight request of the three ways blocking JDBC calls
+ * have been scheduled: {@code Schedulers.boundedElastic()}, the platform-thread bulkheads
+ * and {@code query.execution.mode=virtual}.
+ * <p>
+ * Each call borrows a connection, runs a primary-key lookup on embedded H2 and then holds
+ * the connection for {@link #NETWORK_WAIT_MILLIS}, standing in for the Oracle round trip
+ * the calls are parked on in production. The footprint run parks {@link #IN_FLIGHT}
+ * requests at once and reports the heap they hold per request and the platform threads
+ * the mode runs them on: a parked virtual thread keeps its stack on the heap, a platform
+ * thread outside it. Driver buffers are the same in every mode and are left out. The virtual-thread mode
+ * needs Java 21; on older runtimes it is only checked to fail with a clear message. Numbers are logged, not asserted.
+ */
+class ExecutionModeBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionModeBenchmarkTest.class);
+
+    private static final int ROWS = 1_000;
+    private static final int POOL_SIZE = 20;
+    private static final int CALLS = 2_000;
+    private static final int CONCURRENCY = 200;
+    private static final int IN_FLIGHT = 1_000;
+    private static final long NETWORK_WAIT_MILLIS = 2;
+
+    private HikariDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:modes;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(POOL_SIZE);
+        config.setMinimumIdle(POOL_SIZE);
+        dataSource = new HikariDataSource(config);
+        try (Connection connection = dataSource.getConnection();
+             Statement setup = connection.createStatement()) {
+            setup.execute("DROP TABLE IF EXISTS item");
+            setup.execute("CREATE TABLE item (id INT PRIMARY KEY, name VARCHAR(50))");
+            setup.execute("INSERT INTO item SELECT X, 'item ' || X FROM SYSTEM_RANGE(1, " + ROWS + ")");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void executionModesSideBySide() throws InterruptedException {
+        log.info("{} calls at concurrency {}, pool of {}, {} ms network wait; footprint of {} parked requests:",
+                CALLS, CONCURRENCY, POOL_SIZE, NETWORK_WAIT_MILLIS, IN_FLIGHT);
+
+        report("boundedElastic", measure(Schedulers.boundedElastic()));
+        report("bulkhead", measure(DatabaseSchedulers.Mode.PLATFORM));
+        if (Runtime.version().feature() >= 21) {
+            report("virtual", measure(DatabaseSchedulers.Mode.VIRTUAL));
+        } else {
+            log.info("  virtual       : skipped, needs Java 21 (running {})", Runtime.version());
+            assertThatThrownBy(() -> measure(DatabaseSchedulers.Mode.VIRTUAL))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("needs Java 21");
+        }
+    }
+
+    private Outcome measure(DatabaseSchedulers.Mode mode) throws InterruptedException {
+        // The queue takes every parked request, so the footprint run is never rejected
+        DatabaseSchedulers schedulers = new DatabaseSchedulers(dataSource, new SimpleMeterRegistry(),
+                POOL_SIZE, 0.6, 0.3, 0.1, IN_FLIGHT, mode);
+        try {
+            return measure(schedulers.query());
+        } finally {
+            schedulers.dispose();
+        }
+    }
+
+    private Outcome measure(Scheduler scheduler) throws InterruptedException {
+        // Threads a mode starts stay alive between runs, so they count from before its first call
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+        run(scheduler, CALLS / 4);
+        long started = System.nanoTime();
+        long found = run(scheduler, CALLS);
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        assertThat(found).isEqualTo(CALLS);
+        return footprint(scheduler, threadsBefore, new Outcome(millis));
+    }
+
+    private long run(Scheduler scheduler, int calls) {
+        return Flux.range(0, calls)
+                .flatMap(i -> Mono.fromCallable(() -> lookup(1 + i % ROWS)).subscribeOn(scheduler), CONCURRENCY)
+                .filter(Boolean::booleanValue)
+                .count()
+                .block();
+    }
+
+    // What a query call does on its scheduler thread, with the wire time made explicit
+    private boolean lookup(int id) throws SQLException, InterruptedException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT name FROM item WHERE id = ?")) {
+            statement.setInt(1, id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                boolean found = resultSet.next();
+                Thread.sleep(NETWORK_WAIT_MILLIS);
+                return found;
+            }
+        }
+    }
+
+    private static Outcome footprint(Scheduler scheduler, int threadsBefore, Outcome outcome)
+            throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long heapBefore = usedHeapAfterGc(memory);
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(IN_FLIGHT);
+        for (int i = 0; i < IN_FLIGHT; i++) {
+            Mono.fromCallable(() -> release.await(1, TimeUnit.MINUTES))
+                    .subscribeOn(scheduler)
+                    .doFinally(signal -> done.countDown())
+                    .subscribe(parked -> { }, error -> log.warn("Parked request failed", error));
+        }
+        // Let every request reach its thread or queue slot before measuring
+        Thread.sleep(500);
+        outcome.heapBytesPerRequest = (usedHeapAfterGc(memory) - heapBefore) / IN_FLIGHT;
+        outcome.platformThreads = threads.getThreadCount() - threadsBefore;
+
+        release.countDown();
+        assertThat(done.await(1, TimeUnit.MINUTES)).isTrue();
+        return outcome;
+    }
+
+    // Lowest of a few readings, so garbage a collection left behind does not count
+    private static long usedHeapAfterGc(MemoryMXBean memory) throws InterruptedException {
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+            used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+
+    private static void report(String mode, Outcome outcome) {
+        log.info("  {}: {} ms, {} calls/s; {} bytes of heap per parked request, {} platform threads",
+                String.format("%-14s", mode), outcome.millis, CALLS * 1000L / Math.max(1, outcome.millis),
+                outcome.heapBytesPerRequest, outcome.platformThreads);
+    }
+
+    private static final class Outcome {
+        private final long millis;
+        private long heapBytesPerRequest;
+        private int platformThreads;
+
+        Outcome(long millis) {
+            this.millis = millis;
+        }
+    }
+}
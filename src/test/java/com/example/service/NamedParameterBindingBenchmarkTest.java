@@ -0,0 +1,87 @@
+package com.example.service;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hard parses of the old string-splicing path against {@link NamedParameterBinder}, on an
+ * embedded H2 database. H2's query statistics keep one entry per distinct statement text
+ * the database had to parse, which is what Oracle hard-parses once per new text.
+ */
+class NamedParameterBindingBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(NamedParameterBindingBenchmarkTest.class);
+
+    private static final int ROWS = 2_000;
+    private static final String QUERY = "SELECT name FROM item WHERE id = :id";
+
+    @Test
+    void boundTemplateIsParsedOnceWhereSplicedSqlIsParsedPerValue() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:binding;DB_CLOSE_DELAY=-1", "sa", "");
+             Statement setup = connection.createStatement()) {
+            setup.execute("CREATE TABLE item (id INT PRIMARY KEY, name VARCHAR(50))");
+            setup.execute("INSERT INTO item SELECT X, 'item ' || X FROM SYSTEM_RANGE(1, " + ROWS + ")");
+            setup.execute("SET QUERY_STATISTICS_MAX_ENTRIES " + (ROWS * 4));
+            setup.execute("SET QUERY_STATISTICS TRUE");
+
+            long started = System.nanoTime();
+            for (int id = 1; id <= ROWS; id++) {
+                // What QueryService.applyParams used to do
+                String sql = QUERY.replace(":id", String.valueOf(id));
+                try (Statement statement = connection.createStatement();
+                     ResultSet resultSet = statement.executeQuery(sql)) {
+                    assertThat(resultSet.next()).isTrue();
+                }
+            }
+            long splicedNanos = System.nanoTime() - started;
+
+            CompiledTemplate template = TemplateCompiler.compile("item", QUERY, 1L);
+            started = System.nanoTime();
+            for (int id = 1; id <= ROWS; id++) {
+                Map<String, Object> params = Collections.singletonMap("id", id);
+                try (PreparedStatement statement = connection.prepareStatement(template.getSql())) {
+                    NamedParameterBinder.bind(statement, template, params);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        assertThat(resultSet.next()).isTrue();
+                    }
+                }
+            }
+            long boundNanos = System.nanoTime() - started;
+
+            long splicedParses = distinctStatements(connection, "SELECT name FROM item WHERE id = %", "%?%");
+            long boundParses = distinctStatements(connection, template.getSql(), null);
+            log.info("{} lookups: spliced SQL parsed {} statements in {} ms, bound template {} in {} ms",
+                    ROWS, splicedParses, splicedNanos / 1_000_000, boundParses, boundNanos / 1_000_000);
+
+            assertThat(splicedParses).isEqualTo(ROWS);
+            assertThat(boundParses).isEqualTo(1);
+        }
+    }
+
+    private static long distinctStatements(Connection connection, String like, String notLike) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM INFORMATION_SCHEMA.QUERY_STATISTICS WHERE SQL_STATEMENT LIKE ?"
+                + (notLike == null ? "" : " AND SQL_STATEMENT NOT LIKE ?");
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, like);
+            if (notLike != null) {
+                statement.setString(2, notLike);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+    }
+}
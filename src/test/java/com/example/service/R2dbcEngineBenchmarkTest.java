@@ -0,0 +1,212 @@
+package com.example.service;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.h2.H2ConnectionOption;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The same read workload through the JDBC engine's access path and through
+ * {@link R2dbcQueryExecutor}, side by side on one embedded H2 database.
+ * <p>
+ * The JDBC side does what {@code QueryExecutionService.queryRows} does (pool, query
+ * bulkhead, {@link RowLayout}) with a plain prepareStatement, since the Oracle statement
+ * cache needs an Oracle connection. H2 answers in-process, so neither side waits on a
+ * network here, and r2dbc-h2 runs H2's blocking engine underneath: the numbers compare
+ * per-call overhead and the threads each side needs, not the latency hiding Oracle R2DBC
+ * gives against a remote database. Timings are logged, not asserted.
+ */
+class R2dbcEngineBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(R2dbcEngineBenchmarkTest.class);
+
+    private static final int ROWS = 10_000;
+    private static final int CALLS = 2_000;
+    private static final int WARM_UP_CALLS = 500;
+    private static final int CONCURRENCY = 32;
+    private static final int POOL_SIZE = 10;
+    private static final String QUERY = "SELECT id, name, created FROM item WHERE id BETWEEN :low AND :high ORDER BY id";
+    private static final int RANGE = 50;
+    private static final String INSERT_NOTE = "INSERT INTO item_note (id, body) VALUES (:id, :body)";
+
+    private HikariDataSource dataSource;
+    private ConnectionPool connectionPool;
+    private DatabaseSchedulers databaseSchedulers;
+    private CompiledTemplate template;
+    private CompiledTemplate note;
+    private R2dbcQueryExecutor r2dbcExecutor;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:engines;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(POOL_SIZE);
+        dataSource = new HikariDataSource(config);
+        try (Connection connection = dataSource.getConnection();
+             Statement setup = connection.createStatement()) {
+            setup.execute("DROP TABLE IF EXISTS item");
+            setup.execute("DROP TABLE IF EXISTS item_note");
+            setup.execute("CREATE TABLE item_note (id INT PRIMARY KEY, body BLOB)");
+            setup.execute("CREATE TABLE item (id INT PRIMARY KEY, name VARCHAR(50), created TIMESTAMP)");
+            setup.execute("INSERT INTO item SELECT X, 'item ' || X, DATEADD('SECOND', X, TIMESTAMP '2024-01-01 00:00:00')"
+                    + " FROM SYSTEM_RANGE(1, " + ROWS + ")");
+        }
+
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(new H2ConnectionFactory(
+                        H2ConnectionConfiguration.builder()
+                                .inMemory("engines")
+                                .property(H2ConnectionOption.DB_CLOSE_DELAY, "-1")
+                                .username("sa")
+                                .build()))
+                .maxSize(POOL_SIZE)
+                .build());
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TemplateRegistry templateRegistry = new TemplateRegistry();
+        Map<String, TemplateDefinition> definitions = new HashMap<>();
+        definitions.put("items", new TemplateDefinition(QUERY, true, null));
+        definitions.put("note", TemplateDefinition.of(INSERT_NOTE));
+        templateRegistry.publish(definitions, null);
+        template = templateRegistry.getTemplate("items");
+        note = templateRegistry.getTemplate("note");
+        QueryMetrics queryMetrics = new QueryMetrics(meterRegistry,
+                new StaticListableBeanFactory(Collections.singletonMap("templateRegistry", templateRegistry))
+                        .getBeanProvider(TemplateRegistry.class), 200);
+        databaseSchedulers = new DatabaseSchedulers(dataSource, meterRegistry, POOL_SIZE, 0.6, 0.3, 0.1,
+                CALLS, DatabaseSchedulers.Mode.PLATFORM);
+        r2dbcExecutor = new R2dbcQueryExecutor(connectionPool, dataSource, templateRegistry, new ResultCache(0),
+                new ProcedureSignatureCache(dataSource, 300_000), queryMetrics,
+                new SlowQueryLog(dataSource, 1_000, 100, 20, true, false, 60_000), databaseSchedulers,
+                1_000, 4, 500);
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseSchedulers.dispose();
+        connectionPool.dispose();
+        dataSource.close();
+    }
+
+    @Test
+    void sameRowsThroughBothEngines() {
+        Object[] params = {101, 100 + RANGE};
+
+        List<Map<String, Object>> jdbcRows = jdbcQuery(params).block();
+        List<Map<String, Object>> r2dbcRows = r2dbcExecutor.queryForRows("items", params).block();
+
+        assertThat(r2dbcRows).hasSize(RANGE).isEqualTo(jdbcRows);
+        assertThat(r2dbcRows.get(0)).isInstanceOf(CompactRow.class);
+        assertThat(r2dbcRows.get(0).get("CREATED")).isInstanceOf(java.sql.Timestamp.class);
+    }
+
+    @Test
+    void nullsAreBoundWithTheDescribedColumnType() {
+        int[] counts = r2dbcExecutor.executeBatch(new String[]{"note", "note"},
+                new Object[][]{{1, null}, {2, null}}).block();
+
+        assertThat(counts).containsExactly(1, 1);
+        assertThat(note.getParameterSqlTypes()).containsExactly(Types.INTEGER, Types.BLOB);
+    }
+
+    @Test
+    void jdbcAndR2dbcSideBySide() {
+        run(this::jdbcQuery, WARM_UP_CALLS);
+        run(params -> r2dbcExecutor.queryForRows("items", params), WARM_UP_CALLS);
+
+        Result jdbc = run(this::jdbcQuery, CALLS);
+        Result r2dbc = run(params -> r2dbcExecutor.queryForRows("items", params), CALLS);
+
+        log.info("{} calls of {} rows at concurrency {}, pool of {}:", CALLS, RANGE, CONCURRENCY, POOL_SIZE);
+        log.info("  JDBC  on the query bulkhead: {} ms, {} calls/s, peak {} threads",
+                jdbc.millis, jdbc.callsPerSecond(), jdbc.peakThreads);
+        log.info("  R2DBC                      : {} ms, {} calls/s, peak {} threads",
+                r2dbc.millis, r2dbc.callsPerSecond(), r2dbc.peakThreads);
+
+        assertThat(jdbc.rows).isEqualTo((long) CALLS * RANGE);
+        assertThat(r2dbc.rows).isEqualTo(jdbc.rows);
+    }
+
+    // What QueryExecutionService.queryRows does, minus the Oracle statement cache
+    private Mono<List<Map<String, Object>>> jdbcQuery(Object[] params) {
+        return Mono.fromCallable(() -> {
+            List<Map<String, Object>> results = new ArrayList<>();
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(template.getSql())) {
+                for (int i = 0; i < params.length; i++) {
+                    statement.setObject(i + 1, params[i]);
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    RowLayout layout = template.rowLayout(resultSet.getMetaData());
+                    while (resultSet.next()) {
+                        results.add(layout.readRow(resultSet));
+                    }
+                }
+            }
+            return results;
+        }).subscribeOn(databaseSchedulers.query());
+    }
+
+    private static Result run(Function<Object[], Mono<List<Map<String, Object>>>> query, int calls) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long started = System.nanoTime();
+        Long rows = Flux.range(0, calls)
+                .flatMap(i -> {
+                    int low = 1 + (i * 97) % (ROWS - RANGE);
+                    return query.apply(new Object[]{low, low + RANGE - 1});
+                }, CONCURRENCY)
+                .map(result -> (long) result.size())
+                .reduce(0L, Long::sum)
+                .block();
+        return new Result(calls, (System.nanoTime() - started) / 1_000_000, rows, threads.getPeakThreadCount());
+    }
+
+    private static final class Result {
+        private final int calls;
+        private final long millis;
+        private final long rows;
+        private final int peakThreads;
+
+        Result(int calls, long millis, long rows, int peakThreads) {
+            this.calls = calls;
+            this.millis = millis;
+            this.rows = rows;
+            this.peakThreads = peakThreads;
+        }
+
+        long callsPerSecond() {
+            return calls * 1000L / Math.max(1, millis);
+        }
+    }
+}
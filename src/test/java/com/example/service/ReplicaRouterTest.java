@@ -0,0 +1,191 @@
+package com.example.service;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.ServerSocket;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Routing of {@link ReplicaRouter} against embedded H2 databases standing in for the
+ * primary and its replicas.
+ */
+class ReplicaRouterTest {
+
+    private static final String PRIMARY = "jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_A = "jdbc:h2:mem:replica_a;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_B = "jdbc:h2:mem:replica_b;DB_CLOSE_DELAY=-1";
+
+    private static final CompiledTemplate READ_ONLY_QUERY = TemplateCompiler.compile("report",
+            new TemplateDefinition("SELECT 1 FROM DUAL", true, null), 1L);
+    private static final CompiledTemplate READ_WRITE_QUERY = TemplateCompiler.compile("lookup",
+            new TemplateDefinition("SELECT 1 FROM DUAL", false, null), 1L);
+    private static final CompiledTemplate READ_ONLY_DML = TemplateCompiler.compile("touch",
+            new TemplateDefinition("UPDATE t SET x = 1", true, null), 1L);
+
+    private HikariDataSource primary;
+    private ReplicaRouter router;
+
+    @BeforeEach
+    void startPrimary() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(PRIMARY);
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(4);
+        primary = new HikariDataSource(config);
+    }
+
+    @AfterEach
+    void close() {
+        if (router != null) {
+            router.close();
+        }
+        primary.close();
+    }
+
+    private ReplicaRouter router(int replicaPoolSize, String... urls) throws SQLException {
+        router = new ReplicaRouter(primary, new SimpleMeterRegistry(), Arrays.asList(urls), "sa", "",
+                replicaPoolSize, 250, 1);
+        return router;
+    }
+
+    private static String databaseOf(Connection connection) throws SQLException {
+        String url = connection.getMetaData().getURL();
+        for (String name : new String[]{"replica_a", "replica_b", "late_replica", "primary"}) {
+            if (url.contains(name)) {
+                return name;
+            }
+        }
+        return url;
+    }
+
+    private static String read(ReplicaRouter router, CompiledTemplate template) throws SQLException {
+        try (Connection connection = router.connectionFor(template)) {
+            return databaseOf(connection);
+        }
+    }
+
+    @Test
+    void readOnlyQueriesAreSpreadOverTheReplicas() throws SQLException {
+        router(2, REPLICA_A, REPLICA_B);
+
+        Set<String> used = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            used.add(read(router, READ_ONLY_QUERY));
+        }
+
+        assertThat(used).containsExactlyInAnyOrder("replica_a", "replica_b");
+    }
+
+    @Test
+    void everythingElseRunsOnThePrimary() throws SQLException {
+        router(2, REPLICA_A, REPLICA_B);
+
+        assertThat(read(router, READ_WRITE_QUERY)).isEqualTo("primary");
+        assertThat(read(router, READ_ONLY_DML)).isEqualTo("primary");
+        try (Connection connection = router.connectionFor(Arrays.asList(READ_ONLY_QUERY, READ_WRITE_QUERY))) {
+            assertThat(databaseOf(connection)).isEqualTo("primary");
+        }
+        try (Connection connection = router.connectionFor(Arrays.asList(READ_ONLY_QUERY, READ_ONLY_QUERY))) {
+            assertThat(databaseOf(connection)).startsWith("replica_");
+        }
+    }
+
+    @Test
+    void unreachableReplicaIsTakenOutOfRotation() throws Exception {
+        router(2, unreachableUrl("gone"), REPLICA_B);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(read(router, READ_ONLY_QUERY)).isEqualTo("replica_b");
+        }
+        assertThat(router.healthyReplicas()).isEqualTo(1);
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenNoReplicaIsUp() throws Exception {
+        router(2, unreachableUrl("gone"));
+
+        assertThat(read(router, READ_ONLY_QUERY)).isEqualTo("primary");
+        assertThat(router.healthyReplicas()).isZero();
+    }
+
+    @Test
+    void busyReplicaStaysInRotation() throws SQLException {
+        router(1, REPLICA_A, REPLICA_B);
+
+        // Hold the only connection of whichever replica comes first
+        try (Connection held = router.connectionFor(READ_ONLY_QUERY)) {
+            String busy = databaseOf(held);
+            String other = busy.equals("replica_a") ? "replica_b" : "replica_a";
+
+            assertThat(read(router, READ_ONLY_QUERY)).isEqualTo(other);
+            assertThat(read(router, READ_ONLY_QUERY)).isEqualTo(other);
+            router.checkHealth();
+            assertThat(router.healthyReplicas()).isEqualTo(2);
+        }
+        Set<String> used = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            used.add(read(router, READ_ONLY_QUERY));
+        }
+        assertThat(used).containsExactlyInAnyOrder("replica_a", "replica_b");
+    }
+
+    @Test
+    void allReplicasBusyFailsWithThePoolTimeoutInsteadOfLoadingThePrimary() throws SQLException {
+        router(1, REPLICA_A);
+
+        try (Connection held = router.connectionFor(READ_ONLY_QUERY)) {
+            assertThat(databaseOf(held)).isEqualTo("replica_a");
+            assertThatThrownBy(() -> router.connectionFor(READ_ONLY_QUERY))
+                    .isInstanceOf(SQLTransientConnectionException.class);
+            assertThat(router.healthyReplicas()).isEqualTo(1);
+        }
+        assertThat(read(router, READ_ONLY_QUERY)).isEqualTo("replica_a");
+    }
+
+    @Test
+    void recoveredReplicaIsBroughtBackByTheHealthCheck() throws Exception {
+        int port = freePort();
+        router(2, "jdbc:h2:tcp://localhost:" + port + "/mem:late_replica;DB_CLOSE_DELAY=-1");
+
+        assertThat(read(router, READ_ONLY_QUERY)).isEqualTo("primary");
+        assertThat(router.healthyReplicas()).isZero();
+
+        Server server = Server.createTcpServer("-tcpPort", String.valueOf(port), "-ifNotExists").start();
+        try {
+            // Hikari retries a failed pool with a backoff, so the replica may take a few checks to come back
+            long deadline = System.currentTimeMillis() + 15_000;
+            while (router.healthyReplicas() == 0 && System.currentTimeMillis() < deadline) {
+                router.checkHealth();
+            }
+            assertThat(router.healthyReplicas()).isEqualTo(1);
+            assertThat(read(router, READ_ONLY_QUERY)).isEqualTo("late_replica");
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static String unreachableUrl(String name) throws Exception {
+        return "jdbc:h2:tcp://localhost:" + freePort() + "/mem:" + name;
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Snapshot bookkeeping of {@link TemplateRegistry} across refreshes.
+ */
+class TemplateRegistryTest {
+
+    private static final Timestamp T1 = Timestamp.valueOf("2024-01-01 00:00:00");
+
+    private static Map<String, TemplateDefinition> definitions(String... idsAndQueries) {
+        Map<String, TemplateDefinition> definitions = new HashMap<>();
+        for (int i = 0; i < idsAndQueries.length; i += 2) {
+            definitions.put(idsAndQueries[i], TemplateDefinition.of(idsAndQueries[i + 1]));
+        }
+        return definitions;
+    }
+
+    @Test
+    void deltaRereadingUnchangedRowsKeepsTheSnapshot() {
+        TemplateRegistry registry = new TemplateRegistry();
+        TemplateSnapshot loaded = registry.publish(definitions("a", "SELECT 1 FROM DUAL", "b", "SELECT 2 FROM DUAL"), T1);
+
+        TemplateSnapshot refreshed = registry.apply(definitions("a", "SELECT 1 FROM DUAL"),
+                Collections.singletonList("gone"), T1);
+
+        assertThat(refreshed).isSameAs(loaded);
+        assertThat(refreshed.changedSince(loaded)).isEmpty();
+    }
+
+    @Test
+    void deltaRecompilesOnlyChangedTemplates() {
+        TemplateRegistry registry = new TemplateRegistry();
+        TemplateSnapshot loaded = registry.publish(definitions("a", "SELECT 1 FROM DUAL", "b", "SELECT 2 FROM DUAL"), T1);
+
+        TemplateSnapshot refreshed = registry.apply(definitions("a", "SELECT 1 FROM DUAL", "b", "SELECT 3 FROM DUAL"),
+                Collections.emptyList(), T1);
+
+        assertThat(refreshed.getVersion()).isEqualTo(loaded.getVersion() + 1);
+        assertThat(refreshed.get("a")).isSameAs(loaded.get("a"));
+        assertThat(refreshed.get("b").getRevision()).isNotEqualTo(loaded.get("b").getRevision());
+        assertThat(refreshed.changedSince(loaded)).containsExactly("b");
+    }
+
+    @Test
+    void fullReloadKeepsUnchangedTemplates() {
+        TemplateRegistry registry = new TemplateRegistry();
+        TemplateSnapshot loaded = registry.publish(definitions("a", "SELECT 1 FROM DUAL", "b", "SELECT 2 FROM DUAL"), T1);
+
+        assertThat(registry.publish(definitions("a", "SELECT 1 FROM DUAL", "b", "SELECT 2 FROM DUAL"), T1))
+                .isSameAs(loaded);
+
+        TemplateSnapshot reloaded = registry.publish(definitions("a", "SELECT 1 FROM DUAL", "c", "SELECT 3 FROM DUAL"), T1);
+        assertThat(reloaded.get("a")).isSameAs(loaded.get("a"));
+        assertThat(reloaded.changedSince(loaded)).containsExactlyInAnyOrder("b", "c");
+    }
+}